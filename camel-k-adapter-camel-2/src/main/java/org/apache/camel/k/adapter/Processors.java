@@ -17,8 +17,10 @@
 package org.apache.camel.k.adapter;
 
 import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.apache.camel.util.AsyncProcessorConverterHelper;
+import org.apache.camel.util.AsyncProcessorHelper;
 
 public final class Processors {
     private Processors() {
@@ -27,4 +29,8 @@ public final class Processors {
     public static AsyncProcessor convertToAsync(Processor processor) {
         return AsyncProcessorConverterHelper.convert(processor);
     }
+
+    public static void process(AsyncProcessor processor, Exchange exchange) throws Exception {
+        AsyncProcessorHelper.process(processor, exchange);
+    }
 }
@@ -19,6 +19,7 @@ package org.apache.camel.k.adapter;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
 import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.support.ExchangeHelper;
 
 public final class Exchanges  {
     protected Exchanges() {
@@ -27,4 +28,8 @@ public final class Exchanges  {
     public final static Exchange newDefaultExchange(CamelContext context) {
         return new DefaultExchange(context);
     }
+
+    public final static void copyResults(Exchange result, Exchange source) {
+        ExchangeHelper.copyResults(result, source);
+    }
 }
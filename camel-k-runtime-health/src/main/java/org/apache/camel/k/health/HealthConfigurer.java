@@ -30,11 +30,14 @@ public class HealthConfigurer implements Runtime.Listener, HasId {
     private String bindHost;
     private int bindPort;
     private String path;
+    private boolean nativeTransport;
+    private int acceptorCount;
 
     public HealthConfigurer() {
         this.bindHost = DEFAULT_BIND_HOST;
         this.bindPort = DEFAULT_BIND_PORT;
         this.path = DEFAULT_PATH;
+        this.acceptorCount = 1;
     }
 
     public String getBindHost() {
@@ -61,11 +64,37 @@ public class HealthConfigurer implements Runtime.Listener, HasId {
         this.path = path;
     }
 
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
+    /**
+     * Use the native epoll transport instead of NIO, falls back to NIO if the native
+     * library is not available.
+     */
+    public void setNativeTransport(boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+    }
+
+    public int getAcceptorCount() {
+        return acceptorCount;
+    }
+
+    /**
+     * The number of listening sockets bound to the port with SO_REUSEPORT when the native
+     * transport is in use.
+     */
+    public void setAcceptorCount(int acceptorCount) {
+        this.acceptorCount = acceptorCount;
+    }
+
     @Override
     public void accept(Runtime.Phase phase, Runtime runtime) {
         try {
             if (phase == Runtime.Phase.Starting) {
                 endpoint = new HealthEndpoint(runtime.getContext(), bindHost, bindPort, path);
+                endpoint.setNativeTransport(nativeTransport);
+                endpoint.setAcceptorCount(acceptorCount);
                 endpoint.start();
             } else if (phase == Runtime.Phase.Stopping) {
                 if (endpoint != null) {
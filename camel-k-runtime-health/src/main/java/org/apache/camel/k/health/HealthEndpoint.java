@@ -16,6 +16,8 @@
  */
 package org.apache.camel.k.health;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import io.netty.bootstrap.ServerBootstrap;
@@ -27,6 +29,10 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -43,8 +49,11 @@ import io.netty.util.AsciiString;
 import org.apache.camel.CamelContext;
 import org.apache.camel.ServiceStatus;
 import org.apache.camel.k.adapter.ServiceSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class HealthEndpoint extends ServiceSupport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HealthEndpoint.class);
     private static final AsciiString CONTENT_TYPE = AsciiString.cached("Content-Type");
     private static final AsciiString CONTENT_LENGTH = AsciiString.cached("Content-Length");
     private static final byte[] OK = {'O', 'K'};
@@ -55,26 +64,64 @@ public class HealthEndpoint extends ServiceSupport {
     private final int bindPort;
     private final String path;
 
+    private boolean nativeTransport;
+    private int acceptorCount;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private Channel channel;
+    private List<Channel> channels;
 
     public HealthEndpoint(CamelContext context, String bindHost, int bindPort, String path) {
         this.context = context;
         this.bindHost = bindHost;
         this.bindPort = bindPort;
         this.path = path;
+        this.acceptorCount = 1;
+    }
+
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
+    public void setNativeTransport(boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+    }
+
+    public int getAcceptorCount() {
+        return acceptorCount;
+    }
+
+    public void setAcceptorCount(int acceptorCount) {
+        this.acceptorCount = acceptorCount;
     }
 
     @Override
     protected void doStart() throws Exception {
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
+        final boolean epoll = nativeTransport && Epoll.isAvailable();
+        final int acceptors = epoll ? Math.max(1, acceptorCount) : 1;
+
+        if (nativeTransport && !epoll) {
+            LOGGER.warn("Native transport is not available, falling back to NIO: {}", Epoll.unavailabilityCause().getMessage());
+        }
 
         ServerBootstrap b = new ServerBootstrap();
-        b.group(bossGroup, workerGroup)
-            .channel(NioServerSocketChannel.class)
-            .handler(new LoggingHandler(LogLevel.DEBUG))
+
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(acceptors);
+            workerGroup = new EpollEventLoopGroup();
+
+            b.group(bossGroup, workerGroup).channel(EpollServerSocketChannel.class);
+
+            if (acceptors > 1) {
+                b.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
+        } else {
+            bossGroup = new NioEventLoopGroup(1);
+            workerGroup = new NioEventLoopGroup();
+
+            b.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class);
+        }
+
+        b.handler(new LoggingHandler(LogLevel.DEBUG))
             .childHandler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 protected void initChannel(SocketChannel ch) throws Exception {
@@ -84,11 +131,19 @@ public class HealthEndpoint extends ServiceSupport {
                 }
             });
 
-        channel = b.bind(bindHost, bindPort).channel();
+        channels = new ArrayList<>(acceptors);
+
+        for (int i = 0; i < acceptors; i++) {
+            channels.add(b.bind(bindHost, bindPort).sync().channel());
+        }
     }
 
     @Override
     protected void doStop() throws Exception {
+        if (channels != null) {
+            channels.forEach(Channel::close);
+            channels = null;
+        }
         if (bossGroup != null) {
             bossGroup.shutdownGracefully();
         }
@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.camel.CamelExchangeException;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.netty4.NettyCamelState;
+import org.apache.camel.component.netty4.NettyCamelStateCorrelationManager;
+
+/**
+ * A {@link NettyCamelStateCorrelationManager} that correlates responses to exchanges
+ * by HTTP/2 stream id so that many exchanges can be in flight on the same channel.
+ *
+ * The binding stores the request it creates as an exchange property so the state of
+ * the exchange can be bound to the request when it is registered, then to the stream
+ * when the request is written to the channel by the {@link StreamHandler}.
+ */
+public class KnativeHttp2CorrelationManager implements NettyCamelStateCorrelationManager {
+    static final String REQUEST_PROPERTY = "CamelKnativeHttp2Request";
+
+    private static final AttributeKey<Streams> STREAMS = AttributeKey.valueOf(KnativeHttp2CorrelationManager.class, "streams");
+
+    @Override
+    public void putState(Channel channel, NettyCamelState state) {
+        final Exchange exchange = state.getExchange();
+        final Object request = exchange.removeProperty(REQUEST_PROPERTY);
+
+        if (!(request instanceof HttpRequest)) {
+            throw new IllegalStateException("No HTTP/2 request bound to exchange " + exchange.getExchangeId());
+        }
+
+        streams(channel).pending.put((HttpRequest)request, state);
+    }
+
+    @Override
+    public void removeState(ChannelHandlerContext ctx, Channel channel) {
+        final Streams streams = channel.attr(STREAMS).getAndSet(null);
+        if (streams == null) {
+            return;
+        }
+
+        final List<NettyCamelState> states = new ArrayList<>();
+        synchronized (streams.pending) {
+            states.addAll(streams.pending.values());
+            streams.pending.clear();
+        }
+        states.addAll(streams.active.values());
+        streams.active.clear();
+
+        // the channel is closed so fail all the exchanges still waiting
+        // for a response
+        for (NettyCamelState state : states) {
+            final Exchange exchange = state.getExchange();
+
+            if (streams.cause != null) {
+                exchange.setException(streams.cause);
+            } else {
+                exchange.setException(new CamelExchangeException("No response received from remote server: " + channel.remoteAddress(), exchange, new ClosedChannelException()));
+            }
+
+            state.getCallback().done(false);
+        }
+    }
+
+    @Override
+    public NettyCamelState getState(ChannelHandlerContext ctx, Channel channel, Object msg) {
+        final Streams streams = channel.attr(STREAMS).get();
+        if (streams == null || !(msg instanceof HttpMessage)) {
+            return null;
+        }
+
+        final Integer streamId = ((HttpMessage)msg).headers().getInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
+        if (streamId == null) {
+            return null;
+        }
+
+        return streams.active.remove(streamId);
+    }
+
+    @Override
+    public NettyCamelState getState(ChannelHandlerContext ctx, Channel channel, Throwable cause) {
+        final Streams streams = channel.attr(STREAMS).get();
+        if (streams != null) {
+            streams.cause = cause;
+        }
+
+        // an exception can't be related to a single stream, so close the channel
+        // to fail all the pending exchanges.
+        channel.close();
+
+        return null;
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    private static Streams streams(Channel channel) {
+        Streams streams = channel.attr(STREAMS).get();
+        if (streams == null) {
+            final Streams answer = new Streams();
+
+            streams = channel.attr(STREAMS).setIfAbsent(answer);
+            if (streams == null) {
+                streams = answer;
+            }
+        }
+
+        return streams;
+    }
+
+    private static final class Streams {
+        final Map<HttpRequest, NettyCamelState> pending = Collections.synchronizedMap(new IdentityHashMap<>());
+        final Map<Integer, NettyCamelState> active = new ConcurrentHashMap<>();
+        volatile Throwable cause;
+    }
+
+    /**
+     * Binds the state of an exchange to the HTTP/2 stream created to send its request.
+     *
+     * It must be placed after the HTTP/2 connection handler so it sees requests before
+     * they are translated to frames, the stream being created synchronously when the
+     * request is forwarded.
+     *
+     * The producer writes the first request as soon as the connection is established,
+     * which happens before the channel active event that triggers the HTTP/2 connection
+     * preface, so writes are held back until the channel is active.
+     */
+    static final class StreamHandler extends ChannelDuplexHandler {
+        private final Http2Connection connection;
+        private final Queue<PendingWrite> pending;
+        private boolean active;
+
+        StreamHandler(Http2Connection connection) {
+            this.connection = connection;
+            this.pending = new ArrayDeque<>();
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            ctx.fireChannelActive();
+
+            active = true;
+
+            for (PendingWrite write = pending.poll(); write != null; write = pending.poll()) {
+                write(ctx, write.msg, write.promise);
+            }
+
+            ctx.flush();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            for (PendingWrite write = pending.poll(); write != null; write = pending.poll()) {
+                ReferenceCountUtil.safeRelease(write.msg);
+                write.promise.tryFailure(new ClosedChannelException());
+            }
+
+            ctx.fireChannelInactive();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            if (active) {
+                ctx.flush();
+            }
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (!active) {
+                pending.add(new PendingWrite(msg, promise));
+                return;
+            }
+
+            final Streams streams = ctx.channel().attr(STREAMS).get();
+            final NettyCamelState state = streams != null && msg instanceof HttpRequest
+                ? streams.pending.remove(msg)
+                : null;
+
+            if (state == null) {
+                ctx.write(msg, promise);
+                return;
+            }
+
+            final int before = connection.local().lastStreamCreated();
+
+            ctx.write(msg, promise);
+
+            final int after = connection.local().lastStreamCreated();
+            if (after != before) {
+                streams.active.put(after, state);
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        final Object msg;
+        final ChannelPromise promise;
+
+        PendingWrite(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
+}
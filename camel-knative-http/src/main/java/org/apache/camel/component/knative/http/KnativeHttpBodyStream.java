@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+/**
+ * The body of a request received by a streaming consumer.
+ *
+ * Chunks are appended by the channel while the request is read and consumed by the
+ * route. When more than the configured buffer size is waiting to be consumed, reading
+ * from the channel is suspended until the route has consumed half of it so the memory
+ * used by a request does not depend on the size of its body.
+ *
+ * Closing the stream discards the remaining content of the request.
+ */
+public final class KnativeHttpBodyStream extends InputStream {
+    private final Channel channel;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final Deque<ByteBuf> chunks;
+
+    private int buffered;
+    private boolean complete;
+    private boolean closed;
+    private boolean suspended;
+    private Throwable cause;
+
+    KnativeHttpBodyStream(Channel channel, int bufferSize) {
+        this.channel = channel;
+        this.highWatermark = Math.max(1, bufferSize);
+        this.lowWatermark = this.highWatermark / 2;
+        this.chunks = new ArrayDeque<>();
+    }
+
+    // ************************
+    //
+    // Channel side
+    //
+    // ************************
+
+    synchronized void offer(ByteBuf chunk) {
+        if (closed || complete || !chunk.isReadable()) {
+            chunk.release();
+            return;
+        }
+
+        chunks.add(chunk);
+        buffered += chunk.readableBytes();
+
+        if (!suspended && buffered >= highWatermark) {
+            suspended = true;
+            channel.config().setAutoRead(false);
+        }
+
+        notifyAll();
+    }
+
+    synchronized void complete() {
+        complete = true;
+        notifyAll();
+    }
+
+    synchronized void fail(Throwable cause) {
+        if (!complete) {
+            this.cause = cause;
+            this.complete = true;
+
+            discard();
+        }
+
+        notifyAll();
+    }
+
+    // ************************
+    //
+    // Route side
+    //
+    // ************************
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (chunks.isEmpty() && !complete && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the request body");
+            }
+        }
+
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (cause != null) {
+            throw new IOException("Failed to read the request body", cause);
+        }
+        if (chunks.isEmpty()) {
+            return -1;
+        }
+
+        final ByteBuf chunk = chunks.peek();
+        final int answer = Math.min(len, chunk.readableBytes());
+
+        chunk.readBytes(b, off, answer);
+        if (!chunk.isReadable()) {
+            chunks.poll().release();
+        }
+
+        buffered -= answer;
+
+        if (suspended && buffered <= lowWatermark) {
+            resume();
+        }
+
+        return answer;
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        return buffered;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+
+            discard();
+            notifyAll();
+        }
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    private void discard() {
+        for (ByteBuf chunk = chunks.poll(); chunk != null; chunk = chunks.poll()) {
+            chunk.release();
+        }
+
+        buffered = 0;
+
+        // the channel must be read till the end of the request, in
+        // order to discard the remaining content
+        if (suspended) {
+            resume();
+        }
+    }
+
+    private void resume() {
+        suspended = false;
+        channel.config().setAutoRead(true);
+    }
+}
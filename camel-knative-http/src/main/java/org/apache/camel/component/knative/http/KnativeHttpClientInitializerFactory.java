@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.DefaultHttp2Connection;
+import io.netty.handler.codec.http2.DelegatingDecompressorFrameListener;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.HttpToHttp2ConnectionHandlerBuilder;
+import io.netty.handler.codec.http2.InboundHttp2ToHttpAdapterBuilder;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.apache.camel.component.netty4.ClientInitializerFactory;
+import org.apache.camel.component.netty4.NettyProducer;
+import org.apache.camel.component.netty4.http.HttpClientInitializerFactory;
+import org.apache.camel.component.netty4.http.NettyHttpProducer;
+import org.apache.camel.component.netty4.http.handlers.HttpClientChannelHandler;
+
+/**
+ * A {@link HttpClientInitializerFactory} that, when h2c is enabled, configures the
+ * pipeline to send requests using HTTP/2 with prior knowledge.
+ *
+ * Requests and responses are translated from/to HTTP/1.1 objects so the producer and
+ * the binding work the same for both protocol versions, and each request is sent on
+ * its own stream so many exchanges can be in flight on the same connection; they are
+ * correlated to the responses by a {@link KnativeHttp2CorrelationManager}.
+ *
+ * SSL and custom encoders/decoders are not supported in h2c mode.
+ */
+public class KnativeHttpClientInitializerFactory extends HttpClientInitializerFactory {
+    private NettyHttpProducer producer;
+
+    public KnativeHttpClientInitializerFactory() {
+    }
+
+    public KnativeHttpClientInitializerFactory(NettyHttpProducer producer) {
+        super(producer);
+
+        this.producer = producer;
+
+        if (isH2c() && producer.getConfiguration().isSsl()) {
+            throw new IllegalArgumentException("h2c can't be enabled on a ssl endpoint: " + producer.getEndpoint());
+        }
+    }
+
+    @Override
+    public ClientInitializerFactory createPipelineFactory(NettyProducer producer) {
+        return new KnativeHttpClientInitializerFactory((NettyHttpProducer)producer);
+    }
+
+    @Override
+    protected void initChannel(Channel ch) throws Exception {
+        if (!isH2c()) {
+            super.initChannel(ch);
+            return;
+        }
+
+        final Http2Connection connection = new DefaultHttp2Connection(false);
+        final int maxContentLength = configuration.getChunkedMaxContentLength();
+
+        ChannelPipeline pipeline = ch.pipeline();
+        pipeline.addLast("http2", new HttpToHttp2ConnectionHandlerBuilder()
+            .connection(connection)
+            .frameListener(new DelegatingDecompressorFrameListener(
+                connection,
+                new InboundHttp2ToHttpAdapterBuilder(connection)
+                    .maxContentLength(maxContentLength)
+                    .propagateSettings(false)
+                    .build()))
+            .build());
+        pipeline.addLast("streams", new KnativeHttp2CorrelationManager.StreamHandler(connection));
+
+        if (producer.getConfiguration().getRequestTimeout() > 0) {
+            pipeline.addLast("timeout", new ReadTimeoutHandler(producer.getConfiguration().getRequestTimeout(), TimeUnit.MILLISECONDS));
+        }
+
+        pipeline.addLast("handler", new HttpClientChannelHandler(producer));
+    }
+
+    private boolean isH2c() {
+        return configuration instanceof KnativeHttpConfiguration && ((KnativeHttpConfiguration)configuration).isH2c();
+    }
+}
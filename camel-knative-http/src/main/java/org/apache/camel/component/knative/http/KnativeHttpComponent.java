@@ -17,7 +17,9 @@
 package org.apache.camel.component.knative.http;
 
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.channels.ClosedChannelException;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -28,16 +30,19 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
-import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
-import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpScheme;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.HttpConversionUtil;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
 import org.apache.camel.Endpoint;
@@ -45,22 +50,25 @@ import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.NoTypeConversionAvailableException;
 import org.apache.camel.TypeConverter;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.component.netty4.NettyConverter;
 import org.apache.camel.component.netty4.http.DefaultNettyHttpBinding;
+import org.apache.camel.component.netty4.http.HttpServerBootstrapFactory;
 import org.apache.camel.component.netty4.http.HttpServerConsumerChannelFactory;
 import org.apache.camel.component.netty4.http.NettyHttpBinding;
 import org.apache.camel.component.netty4.http.NettyHttpComponent;
 import org.apache.camel.component.netty4.http.NettyHttpConfiguration;
 import org.apache.camel.component.netty4.http.NettyHttpConsumer;
+import org.apache.camel.component.netty4.http.NettyHttpEndpoint;
+import org.apache.camel.component.netty4.http.NettyHttpHeaderFilterStrategy;
 import org.apache.camel.component.netty4.http.NettyHttpHelper;
+import org.apache.camel.component.netty4.http.NettyHttpMessage;
 import org.apache.camel.component.netty4.http.handlers.HttpServerChannelHandler;
-import org.apache.camel.http.common.CamelServlet;
-import org.apache.camel.k.adapter.Exceptions;
 import org.apache.camel.k.adapter.Objects;
 import org.apache.camel.k.adapter.Services;
 import org.apache.camel.spi.HeaderFilterStrategy;
-import org.apache.camel.support.RestConsumerContextPathMatcher;
-import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.spi.Synchronization;
 import org.apache.camel.util.URISupport;
 import org.apache.camel.util.UnsafeUriCharactersEncoder;
 import org.slf4j.Logger;
@@ -70,31 +78,228 @@ import static io.netty.handler.codec.http.HttpResponseStatus.METHOD_NOT_ALLOWED;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
+@ManagedResource(description = "Managed KnativeHttpComponent")
 public class KnativeHttpComponent extends NettyHttpComponent {
     private static final Logger LOGGER = LoggerFactory.getLogger(KnativeHttpComponent.class);
-    private final Map<Integer, HttpServerConsumerChannelFactory> handlers = new ConcurrentHashMap<>();
+    private final Map<Integer, Handler> handlers = new ConcurrentHashMap<>();
+    private final Map<String, HttpServerBootstrapFactory> bootstrapFactories = new HashMap<>();
+    private int maxInflightExchangesPerPort = -1;
 
     public KnativeHttpComponent() {
         super();
+        setConfiguration(new KnativeHttpConfiguration());
         setNettyHttpBinding(new KnativeNettyHttpBinding(getHeaderFilterStrategy()));
     }
 
+    public boolean isZeroCopy() {
+        return getKnativeConfiguration().isZeroCopy();
+    }
+
+    /**
+     * If enabled, consumers bind the body of incoming requests to the camel message
+     * as a read-only view of the netty buffer instead of copying it.
+     */
+    public void setZeroCopy(boolean zeroCopy) {
+        getKnativeConfiguration().setZeroCopy(zeroCopy);
+    }
+
+    public boolean isH2c() {
+        return getKnativeConfiguration().isH2c();
+    }
+
+    /**
+     * If enabled, consumers accept HTTP/2 over cleartext connections and producers
+     * send requests using HTTP/2 with prior knowledge.
+     */
+    public void setH2c(boolean h2c) {
+        getKnativeConfiguration().setH2c(h2c);
+    }
+
+    public boolean isNativeTransport() {
+        return getKnativeConfiguration().isNativeTransport();
+    }
+
+    /**
+     * If enabled, the native epoll transport is used instead of NIO. It falls back to NIO
+     * when the native library is not available on the platform.
+     */
+    public void setNativeTransport(boolean nativeTransport) {
+        getKnativeConfiguration().setNativeTransport(nativeTransport);
+    }
+
+    public int getAcceptorCount() {
+        return getKnativeConfiguration().getAcceptorCount();
+    }
+
+    /**
+     * The number of listening sockets bound to each consumer port with SO_REUSEPORT
+     * when the native transport is in use.
+     */
+    public void setAcceptorCount(int acceptorCount) {
+        getKnativeConfiguration().setAcceptorCount(acceptorCount);
+    }
+
+    public boolean isStreaming() {
+        return getKnativeConfiguration().isStreaming();
+    }
+
+    /**
+     * If enabled, consumers bind the body of incoming requests as a stream fed while the
+     * request is read instead of aggregating the whole request first.
+     */
+    public void setStreaming(boolean streaming) {
+        getKnativeConfiguration().setStreaming(streaming);
+    }
+
+    public int getStreamingBufferSize() {
+        return getKnativeConfiguration().getStreamingBufferSize();
+    }
+
+    /**
+     * The number of bytes of a streamed request body buffered in memory before reading
+     * from the socket is suspended.
+     */
+    public void setStreamingBufferSize(int streamingBufferSize) {
+        getKnativeConfiguration().setStreamingBufferSize(streamingBufferSize);
+    }
+
+    public int getMaxInflightExchangesPerPort() {
+        return maxInflightExchangesPerPort;
+    }
+
+    /**
+     * The maximum number of exchanges processed concurrently by all the consumers bound
+     * to the same port, requests received when the limit is reached are shed. A non
+     * positive value means no limit.
+     */
+    public void setMaxInflightExchangesPerPort(int maxInflightExchangesPerPort) {
+        this.maxInflightExchangesPerPort = maxInflightExchangesPerPort;
+    }
+
+    public int getMaxInflightExchanges() {
+        return getKnativeConfiguration().getMaxInflightExchanges();
+    }
+
+    /**
+     * The maximum number of exchanges processed concurrently by each consumer, requests
+     * received when the limit is reached are shed.
+     */
+    public void setMaxInflightExchanges(int maxInflightExchanges) {
+        getKnativeConfiguration().setMaxInflightExchanges(maxInflightExchanges);
+    }
+
+    public int getSheddingStatusCode() {
+        return getKnativeConfiguration().getSheddingStatusCode();
+    }
+
+    /**
+     * The status code used to answer shed requests.
+     */
+    public void setSheddingStatusCode(int sheddingStatusCode) {
+        getKnativeConfiguration().setSheddingStatusCode(sheddingStatusCode);
+    }
+
+    public int getSheddingRetryAfter() {
+        return getKnativeConfiguration().getSheddingRetryAfter();
+    }
+
+    /**
+     * The number of seconds set in the Retry-After header of shed requests.
+     */
+    public void setSheddingRetryAfter(int sheddingRetryAfter) {
+        getKnativeConfiguration().setSheddingRetryAfter(sheddingRetryAfter);
+    }
+
+    @ManagedAttribute(description = "The number of exchanges in flight on all the ports")
+    public int getInflightExchanges() {
+        return handlers.values().stream().mapToInt(h -> h.limiter.getInflight()).sum();
+    }
+
+    @ManagedAttribute(description = "The number of requests shed on all the ports")
+    public long getShedExchanges() {
+        return handlers.values().stream().mapToLong(Handler::shed).sum();
+    }
+
+    /**
+     * Gives access to the concurrency limiter of the given consumer.
+     *
+     * @return the limiter or null if the consumer is not bound to this component.
+     */
+    public KnativeHttpConcurrencyLimiter getConcurrencyLimiter(NettyHttpConsumer consumer) {
+        final Handler handler = handlers.get(consumer.getConfiguration().getPort());
+        return handler != null ? handler.limiter(consumer) : null;
+    }
+
     @Override
     public synchronized HttpServerConsumerChannelFactory getMultiplexChannelHandler(int port) {
-        return handlers.computeIfAbsent(port, Handler::new);
+        return handlers.computeIfAbsent(port, p -> new Handler(p, maxInflightExchangesPerPort));
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        KnativeHttpConverter.register(getCamelContext().getTypeConverterRegistry());
     }
 
     @Override
     protected void doStop() throws Exception {
         super.doStop();
 
+        Services.stop(bootstrapFactories.values());
+        bootstrapFactories.clear();
+
         Services.start(handlers.values());
         handlers.clear();
     }
 
     @Override
     protected Endpoint createEndpoint(String uri, String remaining, Map<String, Object> parameters) throws Exception {
-        return super.createEndpoint(uri, remaining, parameters);
+        final Endpoint answer = super.createEndpoint(uri, remaining, parameters);
+
+        if (answer instanceof NettyHttpEndpoint) {
+            final NettyHttpConfiguration configuration = ((NettyHttpEndpoint)answer).getConfiguration();
+
+            if (configuration.isNativeTransport() && !Epoll.isAvailable()) {
+                LOGGER.warn("Native transport is not available, falling back to NIO: {}", Epoll.unavailabilityCause().getMessage());
+
+                configuration.setNativeTransport(false);
+            }
+
+            if (configuration instanceof KnativeHttpConfiguration && ((KnativeHttpConfiguration)configuration).isH2c()) {
+                // with HTTP/2 all the requests are multiplexed on a single connection
+                // and correlated to the responses by stream id
+                configuration.setProducerPoolEnabled(false);
+                configuration.setCorrelationManager(new KnativeHttp2CorrelationManager());
+            }
+        }
+
+        return answer;
+    }
+
+    @Override
+    protected synchronized HttpServerBootstrapFactory getOrCreateHttpNettyServerBootstrapFactory(NettyHttpConsumer consumer) {
+        final String key = consumer.getConfiguration().getAddress();
+
+        HttpServerBootstrapFactory answer = bootstrapFactories.get(key);
+        if (answer == null) {
+            answer = new KnativeHttpServerBootstrapFactory(getMultiplexChannelHandler(consumer.getConfiguration().getPort()), consumer);
+            answer.init(getCamelContext(), consumer.getConfiguration(), new KnativeHttpServerInitializerFactory(consumer));
+
+            bootstrapFactories.put(key, answer);
+        }
+
+        return answer;
+    }
+
+    private KnativeHttpConfiguration getKnativeConfiguration() {
+        final NettyHttpConfiguration configuration = getConfiguration();
+
+        if (!(configuration instanceof KnativeHttpConfiguration)) {
+            throw new IllegalStateException("Unsupported configuration type: " + configuration.getClass().getName());
+        }
+
+        return (KnativeHttpConfiguration)configuration;
     }
 
     @ChannelHandler.Sharable
@@ -102,27 +307,34 @@ public class KnativeHttpComponent extends NettyHttpComponent {
         private static final Logger LOG = LoggerFactory.getLogger(Handler.class);
         private static final AttributeKey<HttpServerChannelHandler> SERVER_HANDLER_KEY = AttributeKey.valueOf("serverHandler");
 
-        private final Set<HttpServerChannelHandler> consumers;
+        private final Set<KnativeHttpConsumerChannelHandler> consumers;
         private final int port;
         private final String token;
         private final int len;
+        private final KnativeHttpConcurrencyLimiter limiter;
 
-        public Handler(int port) {
+        private volatile KnativeHttpRoutingTable routes;
+
+        public Handler(int port, int maxInflightExchanges) {
             this.consumers = new CopyOnWriteArraySet<>();
             this.port = port;
             this.token = ":" + port;
             this.len = token.length();
+            this.limiter = new KnativeHttpConcurrencyLimiter(maxInflightExchanges);
+            this.routes = KnativeHttpRoutingTable.EMPTY;
         }
 
         public void init(int port) {
         }
 
-        public void addConsumer(NettyHttpConsumer consumer) {
-            consumers.add(new HttpServerChannelHandler(consumer));
+        public synchronized void addConsumer(NettyHttpConsumer consumer) {
+            consumers.add(new KnativeHttpConsumerChannelHandler(consumer, limiter));
+            routes = KnativeHttpRoutingTable.build(consumers);
         }
 
-        public void removeConsumer(NettyHttpConsumer consumer) {
+        public synchronized void removeConsumer(NettyHttpConsumer consumer) {
             consumers.removeIf(h -> h.getConsumer() == consumer);
+            routes = KnativeHttpRoutingTable.build(consumers);
         }
 
         public int consumers() {
@@ -137,6 +349,20 @@ public class KnativeHttpComponent extends NettyHttpComponent {
             return this;
         }
 
+        long shed() {
+            return limiter.getShed() + consumers.stream().mapToLong(h -> h.getLimiter().getShed()).sum();
+        }
+
+        KnativeHttpConcurrencyLimiter limiter(NettyHttpConsumer consumer) {
+            for (KnativeHttpConsumerChannelHandler handler : consumers) {
+                if (handler.getConsumer() == consumer) {
+                    return handler.getLimiter();
+                }
+            }
+
+            return null;
+        }
+
         @Override
         protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
             // store request, as this channel handler is created per pipeline
@@ -144,7 +370,10 @@ public class KnativeHttpComponent extends NettyHttpComponent {
 
             LOG.debug("Message received: {}", request);
 
-            HttpServerChannelHandler handler = getHandler(request, request.method().name());
+            final KnativeHttpRoutingTable table = this.routes;
+            final String path = path(request);
+
+            HttpServerChannelHandler handler = table.lookup(path, request.headers(), request.method().name());
             if (handler != null) {
                 Attribute<HttpServerChannelHandler> attr = ctx.channel().attr(SERVER_HANDLER_KEY);
                 // store handler as attachment
@@ -158,14 +387,17 @@ public class KnativeHttpComponent extends NettyHttpComponent {
             } else {
                 // okay we cannot process this requires so return either 404 or 405.
                 // to know if its 405 then we need to check if any other HTTP method would have a consumer for the "same" request
-                boolean hasAnyMethod = CamelServlet.METHODS.stream().anyMatch(m -> isHttpMethodAllowed(request, m));
+                Set<String> allowed = table.allowedMethods(path, request.headers());
                 HttpResponse response = null;
-                if (hasAnyMethod) {
+                if (allowed == null || !allowed.isEmpty()) {
                     //method match error, return 405
-                    response = new DefaultHttpResponse(HTTP_1_1, METHOD_NOT_ALLOWED);
+                    response = new DefaultFullHttpResponse(HTTP_1_1, METHOD_NOT_ALLOWED);
+                    if (allowed != null) {
+                        response.headers().set(HttpHeaderNames.ALLOW, String.join(",", allowed));
+                    }
                 } else {
                     // this resource is not found, return 404
-                    response = new DefaultHttpResponse(HTTP_1_1, NOT_FOUND);
+                    response = new DefaultFullHttpResponse(HTTP_1_1, NOT_FOUND);
                 }
                 response.headers().set(Exchange.CONTENT_TYPE, "text/plain");
                 response.headers().set(Exchange.CONTENT_LENGTH, 0);
@@ -189,7 +421,7 @@ public class KnativeHttpComponent extends NettyHttpComponent {
                     // we cannot throw the exception here
                     LOG.warn("HttpServerChannelHandler is not found as attachment to handle exception, send 404 back to the client.", cause);
                     // Now we just send 404 back to the client
-                    HttpResponse response = new DefaultHttpResponse(HTTP_1_1, NOT_FOUND);
+                    HttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, NOT_FOUND);
                     response.headers().set(Exchange.CONTENT_TYPE, "text/plain");
                     response.headers().set(Exchange.CONTENT_LENGTH, 0);
                     ctx.writeAndFlush(response);
@@ -198,63 +430,15 @@ public class KnativeHttpComponent extends NettyHttpComponent {
             }
         }
 
-        private boolean isHttpMethodAllowed(HttpRequest request, String method) {
-            return getHandler(request, method) != null;
-        }
-
-        @SuppressWarnings("unchecked")
-        private HttpServerChannelHandler getHandler(HttpRequest request, String method)  {
-            HttpServerChannelHandler answer = null;
-
+        private String path(HttpRequest request) {
             // need to strip out host and port etc, as we only need the context-path for matching
-            if (method == null) {
-                return null;
-            }
-
             String path = request.uri();
             int idx = path.indexOf(token);
             if (idx > -1) {
                 path = path.substring(idx + len);
             }
             // use the path as key to find the consumer handler to use
-            path = pathAsKey(path);
-
-            // fallback to regular matching
-            if (answer == null) {
-                for (final HttpServerChannelHandler handler : consumers) {
-                    try {
-                        final NettyHttpConsumer consumer = handler.getConsumer();
-                        final HttpHeaders headers = request.headers();
-                        final String uri = consumer.getEndpoint().getEndpointUri();
-                        final Map<String, Object> params = URISupport.parseParameters(URI.create(uri));
-
-                        if (params.containsKey("filter.headerName") && params.containsKey("filter.headerValue")) {
-                            final String filterKey = (String) params.get("filter.headerName");
-                            final String filterVal = (String) params.get("filter.headerValue");
-                            final String headerVal = headers.get(filterKey);
-
-                            if (ObjectHelper.isEmpty(headerVal)) {
-                                continue;
-                            }
-                            if (!ObjectHelper.equal(filterVal, headerVal)) {
-                                continue;
-                            }
-                        }
-
-                        String consumerPath = consumer.getConfiguration().getPath();
-                        boolean matchOnUriPrefix = consumer.getEndpoint().getConfiguration().isMatchOnUriPrefix();
-                        // Just make sure the we get the right consumer path first
-                        if (RestConsumerContextPathMatcher.matchPath(path, consumerPath, matchOnUriPrefix)) {
-                            answer = handler;
-                            break;
-                        }
-                    } catch (Exception e) {
-                        throw Exceptions.wrapRuntimeCamelException(e);
-                    }
-                }
-            }
-
-            return answer;
+            return pathAsKey(path);
         }
 
         private static String pathAsKey(String path) {
@@ -284,10 +468,67 @@ public class KnativeHttpComponent extends NettyHttpComponent {
      * Default {@link NettyHttpBinding}.
      */
     public class KnativeNettyHttpBinding extends DefaultNettyHttpBinding {
+        private volatile RequestTemplate template;
+        private volatile HeaderFilter headerFilter;
+
         public KnativeNettyHttpBinding(HeaderFilterStrategy headerFilterStrategy) {
             super(headerFilterStrategy);
         }
 
+        @Override
+        public Message toCamelMessage(FullHttpRequest request, Exchange exchange, NettyHttpConfiguration configuration) throws Exception {
+            if (request instanceof KnativeHttpStreamingHandler.StreamingRequest) {
+                return toStreamingCamelMessage((KnativeHttpStreamingHandler.StreamingRequest)request, exchange, configuration);
+            }
+            if (!(configuration instanceof KnativeHttpConfiguration) || !((KnativeHttpConfiguration)configuration).isZeroCopy()) {
+                return super.toCamelMessage(request, exchange, configuration);
+            }
+
+            LOGGER.trace("toCamelMessage: {}", request);
+
+            NettyHttpMessage answer = new NettyHttpMessage(exchange.getContext(), request, null);
+            answer.setExchange(exchange);
+            if (configuration.isMapHeaders()) {
+                populateCamelHeaders(request, answer.getHeaders(), exchange, configuration);
+            }
+
+            // bind a read-only view of the content, sharing the reference count of the
+            // request which is retained by the handler and thus released when the
+            // exchange is done
+            final ByteBuf content = request.content().asReadOnly();
+            exchange.addOnCompletion(new ReleaseOnCompletion(content));
+            answer.setBody(content);
+
+            return answer;
+        }
+
+        private Message toStreamingCamelMessage(KnativeHttpStreamingHandler.StreamingRequest request, Exchange exchange, NettyHttpConfiguration configuration) throws Exception {
+            LOGGER.trace("toStreamingCamelMessage: {}", request);
+
+            NettyHttpMessage answer = new NettyHttpMessage(exchange.getContext(), request, null);
+            answer.setExchange(exchange);
+            if (configuration.isMapHeaders()) {
+                populateCamelHeaders(request, answer.getHeaders(), exchange, configuration);
+            }
+
+            // the body is fed while the request is read, closing it once the exchange
+            // is done discards what has not been consumed by the route
+            final KnativeHttpBodyStream body = request.getBody();
+            exchange.addOnCompletion(new CloseOnCompletion(body));
+            answer.setBody(body);
+
+            return answer;
+        }
+
+        @Override
+        public KnativeNettyHttpBinding copy() {
+            KnativeNettyHttpBinding answer = (KnativeNettyHttpBinding)super.copy();
+            answer.template = null;
+            answer.headerFilter = null;
+
+            return answer;
+        }
+
         @Override
         public HttpRequest toNettyRequest(Message message, String uri, NettyHttpConfiguration configuration) throws Exception {
             LOGGER.trace("toNettyRequest: {}", message);
@@ -297,20 +538,17 @@ public class KnativeHttpComponent extends NettyHttpComponent {
                 return (HttpRequest) message.getBody();
             }
 
-            String uriForRequest = uri;
-            if (configuration.isUseRelativePath()) {
-                uriForRequest = URISupport.pathAndQueryOf(new URI(uriForRequest));
-            }
+            final RequestTemplate template = template(uri, configuration);
 
-            // just assume GET for now, we will later change that to the actual method to use
-            HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uriForRequest);
+            ByteBuf buffer = null;
 
             Object body = message.getBody();
             if (body != null) {
-                // support bodies as native Netty
-                ByteBuf buffer;
+                // support bodies as native Netty, the buffer is owned by the message
+                // so netty is given its own reference to release once written and an
+                // index of its own, thus the body can be sent again
                 if (body instanceof ByteBuf) {
-                    buffer = (ByteBuf) body;
+                    buffer = ((ByteBuf) body).retainedDuplicate();
                 } else {
                     // try to convert to buffer first
                     buffer = message.getBody(ByteBuf.class);
@@ -320,23 +558,33 @@ public class KnativeHttpComponent extends NettyHttpComponent {
                         buffer = NettyConverter.toByteBuffer(data);
                     }
                 }
-                if (buffer != null) {
-                    request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, uriForRequest, buffer);
-                    int len = buffer.readableBytes();
-                    // set content-length
-                    request.headers().set(HttpHeaderNames.CONTENT_LENGTH.toString(), len);
-                    LOGGER.trace("Content-Length: {}", len);
-                } else {
+                if (buffer == null) {
                     // we do not support this kind of body
                     throw new NoTypeConversionAvailableException(body, ByteBuf.class);
                 }
             }
 
-            // update HTTP method accordingly as we know if we have a body or not
+            // set the HTTP method accordingly as we know if we have a body or not
             HttpMethod method = NettyHttpHelper.createMethod(message, body != null);
-            request.setMethod(method);
+            HttpRequest request;
+
+            if (buffer != null) {
+                request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, template.requestUri, buffer);
+                int len = buffer.readableBytes();
+                // set content-length
+                request.headers().set(HttpHeaderNames.CONTENT_LENGTH, len);
+                LOGGER.trace("Content-Length: {}", len);
+            } else {
+                request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, template.requestUri);
+            }
 
-            TypeConverter tc = message.getExchange().getContext().getTypeConverter();
+            if (configuration instanceof KnativeHttpConfiguration && ((KnativeHttpConfiguration)configuration).isH2c()) {
+                // the request uri may be relative so the scheme needs to be set explicitly
+                // and the request is bound to the exchange so it can be correlated to the
+                // stream it is sent on
+                request.headers().set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), HttpScheme.HTTP.name());
+                message.getExchange().setProperty(KnativeHttp2CorrelationManager.REQUEST_PROPERTY, request);
+            }
 
             // if we bridge endpoint then we need to skip matching headers with the HTTP_QUERY to avoid sending
             // duplicated headers to the receiver, so use this skipRequestHeaders as the list of headers to skip
@@ -350,6 +598,10 @@ public class KnativeHttpComponent extends NettyHttpComponent {
                 message.getHeaders().remove("host");
             }
 
+            final HeaderFilter filter = headerFilter();
+            final Exchange exchange = message.getExchange();
+            final TypeConverter tc = exchange.getContext().getTypeConverter();
+
             // append headers
             // must use entrySet to ensure case of keys is preserved
             for (Map.Entry<String, Object> entry : message.getHeaders().entrySet()) {
@@ -362,13 +614,23 @@ public class KnativeHttpComponent extends NettyHttpComponent {
                     continue;
                 }
 
+                if (value instanceof String) {
+                    // fast path for the most common case, a single value that does not
+                    // need to be converted
+                    if (filter.accept(key, value, exchange)) {
+                        LOGGER.trace("HTTP-Header: {}={}", key, value);
+                        request.headers().add(key, value);
+                    }
+
+                    continue;
+                }
+
                 // use an iterator as there can be multiple values. (must not use a delimiter)
                 final Iterator<?> it = Objects.createIterator(value, null, true);
                 while (it.hasNext()) {
                     String headerValue = tc.convertTo(String.class, it.next());
 
-                    if (headerValue != null && getHeaderFilterStrategy() != null
-                        && !getHeaderFilterStrategy().applyFilterToCamelHeaders(key, headerValue, message.getExchange())) {
+                    if (headerValue != null && filter.accept(key, headerValue, exchange)) {
                         LOGGER.trace("HTTP-Header: {}={}", key, headerValue);
                         request.headers().add(key, headerValue);
                     }
@@ -379,32 +641,156 @@ public class KnativeHttpComponent extends NettyHttpComponent {
             String contentType = message.getHeader(Exchange.CONTENT_TYPE, String.class);
             if (contentType != null) {
                 // set content-type
-                request.headers().set(HttpHeaderNames.CONTENT_TYPE.toString(), contentType);
+                request.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
                 LOGGER.trace("Content-Type: {}", contentType);
             }
 
             // must include HOST header as required by HTTP 1.1
-            // use URI as its faster than URL (no DNS lookup)
-            URI u = new URI(uri);
-            String hostHeader = u.getHost() + (u.getPort() == 80 ? "" : ":" + u.getPort());
-            request.headers().set(HttpHeaderNames.HOST.toString(), hostHeader);
-            LOGGER.trace("Host: {}", hostHeader);
+            request.headers().set(HttpHeaderNames.HOST, template.host);
+            LOGGER.trace("Host: {}", template.host);
 
             // configure connection to accordingly to keep alive configuration
             // favor using the header from the message
             String connection = message.getHeader(HttpHeaderNames.CONNECTION.toString(), String.class);
             if (connection == null) {
                 // fallback and use the keep alive from the configuration
-                if (configuration.isKeepAlive()) {
-                    connection = HttpHeaderValues.KEEP_ALIVE.toString();
-                } else {
-                    connection = HttpHeaderValues.CLOSE.toString();
-                }
+                connection = template.connection;
             }
-            request.headers().set(HttpHeaderNames.CONNECTION.toString(), connection);
+            request.headers().set(HttpHeaderNames.CONNECTION, connection);
             LOGGER.trace("Connection: {}", connection);
 
             return request;
         }
+
+        private RequestTemplate template(String uri, NettyHttpConfiguration configuration) throws URISyntaxException {
+            RequestTemplate answer = this.template;
+
+            // the binding is copied for each endpoint so the uri and the configuration are
+            // not expected to change, but the uri may still be computed per exchange by the
+            // producer i.e. when the path is provided by a header.
+            if (answer == null || !answer.uri.equals(uri) || answer.configuration != configuration) {
+                answer = new RequestTemplate(uri, configuration);
+                this.template = answer;
+            }
+
+            return answer;
+        }
+
+        private HeaderFilter headerFilter() {
+            final HeaderFilterStrategy strategy = getHeaderFilterStrategy();
+
+            HeaderFilter answer = this.headerFilter;
+            if (answer == null || answer.strategy != strategy) {
+                answer = new HeaderFilter(strategy);
+                this.headerFilter = answer;
+            }
+
+            return answer;
+        }
+    }
+
+    /**
+     * Holds the parts of an outgoing request that depend only on the target uri and
+     * on the endpoint configuration.
+     */
+    private static final class RequestTemplate {
+        final String uri;
+        final NettyHttpConfiguration configuration;
+        final String requestUri;
+        final String host;
+        final String connection;
+
+        RequestTemplate(String uri, NettyHttpConfiguration configuration) throws URISyntaxException {
+            // use URI as its faster than URL (no DNS lookup)
+            final URI u = new URI(uri);
+
+            this.uri = uri;
+            this.configuration = configuration;
+            this.requestUri = configuration.isUseRelativePath() ? URISupport.pathAndQueryOf(u) : uri;
+            this.host = u.getHost() + (u.getPort() == 80 ? "" : ":" + u.getPort());
+            this.connection = configuration.isKeepAlive()
+                ? HttpHeaderValues.KEEP_ALIVE.toString()
+                : HttpHeaderValues.CLOSE.toString();
+        }
+    }
+
+    /**
+     * Applies the {@link HeaderFilterStrategy} to outgoing headers and, when the strategy
+     * is known to only take into account the name of the headers, caches its decisions.
+     */
+    private static final class HeaderFilter {
+        private static final int MAX_CACHED_DECISIONS = 512;
+
+        final HeaderFilterStrategy strategy;
+        final Map<String, Boolean> decisions;
+
+        HeaderFilter(HeaderFilterStrategy strategy) {
+            this.strategy = strategy;
+            this.decisions = strategy != null && strategy.getClass() == NettyHttpHeaderFilterStrategy.class
+                ? new ConcurrentHashMap<>()
+                : null;
+        }
+
+        boolean accept(String name, Object value, Exchange exchange) {
+            if (strategy == null) {
+                return false;
+            }
+            if (decisions == null) {
+                return !strategy.applyFilterToCamelHeaders(name, value, exchange);
+            }
+
+            Boolean answer = decisions.get(name);
+            if (answer == null) {
+                answer = !strategy.applyFilterToCamelHeaders(name, value, exchange);
+
+                // header names may be generated dynamically so do not let the cache grow
+                // indefinitely
+                if (decisions.size() < MAX_CACHED_DECISIONS) {
+                    decisions.put(name, answer);
+                }
+            }
+
+            return answer;
+        }
+    }
+
+    private static final class ReleaseOnCompletion implements Synchronization {
+        private final ByteBuf buffer;
+
+        ReleaseOnCompletion(ByteBuf buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void onComplete(Exchange exchange) {
+            release();
+        }
+
+        @Override
+        public void onFailure(Exchange exchange) {
+            release();
+        }
+
+        private void release() {
+            buffer.release();
+        }
+    }
+
+    private static final class CloseOnCompletion implements Synchronization {
+        private final KnativeHttpBodyStream body;
+
+        CloseOnCompletion(KnativeHttpBodyStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public void onComplete(Exchange exchange) {
+            body.close();
+        }
+
+        @Override
+        public void onFailure(Exchange exchange) {
+            body.close();
+        }
     }
 }
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of exchanges in flight and counts the requests that have been
+ * shed because the limit was reached.
+ *
+ * A limiter with a non positive limit accepts all the requests but still tracks the
+ * number of exchanges in flight.
+ */
+public final class KnativeHttpConcurrencyLimiter {
+    private final int maxInflight;
+    private final AtomicInteger inflight;
+    private final LongAdder shed;
+
+    KnativeHttpConcurrencyLimiter(int maxInflight) {
+        this.maxInflight = maxInflight;
+        this.inflight = new AtomicInteger();
+        this.shed = new LongAdder();
+    }
+
+    boolean tryAcquire() {
+        if (maxInflight <= 0) {
+            inflight.incrementAndGet();
+            return true;
+        }
+
+        for (;;) {
+            final int current = inflight.get();
+            if (current >= maxInflight) {
+                shed.increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        inflight.decrementAndGet();
+    }
+
+    public int getMaxInflight() {
+        return maxInflight;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+}
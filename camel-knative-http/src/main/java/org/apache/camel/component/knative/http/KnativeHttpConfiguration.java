@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import org.apache.camel.component.netty4.http.NettyHttpConfiguration;
+
+public class KnativeHttpConfiguration extends NettyHttpConfiguration {
+    private boolean zeroCopy;
+    private boolean h2c;
+    private int acceptorCount;
+    private boolean streaming;
+    private int streamingBufferSize;
+    private int maxInflightExchanges;
+    private int sheddingStatusCode;
+    private int sheddingRetryAfter;
+
+    public KnativeHttpConfiguration() {
+        setClientInitializerFactory(new KnativeHttpClientInitializerFactory());
+
+        this.acceptorCount = 1;
+        this.streamingBufferSize = 256 * 1024;
+        this.maxInflightExchanges = -1;
+        this.sheddingStatusCode = 503;
+        this.sheddingRetryAfter = 1;
+    }
+
+    // ************************
+    //
+    // Properties
+    //
+    // ************************
+
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    /**
+     * If enabled, the consumer binds the body of the incoming request to the camel
+     * message as a read-only view of the netty buffer instead of copying it into a
+     * stream cache. The buffer is released when the exchange completes.
+     */
+    public void setZeroCopy(boolean zeroCopy) {
+        this.zeroCopy = zeroCopy;
+    }
+
+    public boolean isH2c() {
+        return h2c;
+    }
+
+    /**
+     * If enabled, the consumer accepts HTTP/2 over cleartext connections, either with
+     * prior knowledge or through an HTTP/1.1 upgrade, in addition to HTTP/1.1 and the
+     * producer sends requests with HTTP/2 prior knowledge, multiplexing them on a single
+     * connection.
+     */
+    public void setH2c(boolean h2c) {
+        this.h2c = h2c;
+    }
+
+    public int getAcceptorCount() {
+        return acceptorCount;
+    }
+
+    /**
+     * The number of listening sockets bound to the consumer port with SO_REUSEPORT, each
+     * one with its own event loop, so accepting connections is spread by the kernel among
+     * them. It requires the native transport and it is ignored if not available.
+     */
+    public void setAcceptorCount(int acceptorCount) {
+        this.acceptorCount = acceptorCount;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * If enabled, the consumer does not aggregate the incoming request but creates the
+     * exchange as soon as the request headers are received and binds the body as an
+     * {@link java.io.InputStream} fed while the request is read. Reading from the socket
+     * is suspended when the route does not consume the body fast enough.
+     *
+     * To spill large bodies to disk, enable stream caching and tune its spool threshold.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public int getStreamingBufferSize() {
+        return streamingBufferSize;
+    }
+
+    /**
+     * The number of bytes of a streamed request body that can be buffered in memory
+     * before reading from the socket is suspended.
+     */
+    public void setStreamingBufferSize(int streamingBufferSize) {
+        this.streamingBufferSize = streamingBufferSize;
+    }
+
+    public int getMaxInflightExchanges() {
+        return maxInflightExchanges;
+    }
+
+    /**
+     * The maximum number of exchanges the consumer processes concurrently, requests
+     * received when the limit is reached are shed. A non positive value means no limit.
+     */
+    public void setMaxInflightExchanges(int maxInflightExchanges) {
+        this.maxInflightExchanges = maxInflightExchanges;
+    }
+
+    public int getSheddingStatusCode() {
+        return sheddingStatusCode;
+    }
+
+    /**
+     * The status code used to answer shed requests, usually 503 or 429.
+     */
+    public void setSheddingStatusCode(int sheddingStatusCode) {
+        this.sheddingStatusCode = sheddingStatusCode;
+    }
+
+    public int getSheddingRetryAfter() {
+        return sheddingRetryAfter;
+    }
+
+    /**
+     * The number of seconds set in the Retry-After header of shed requests, a non
+     * positive value disables the header.
+     */
+    public void setSheddingRetryAfter(int sheddingRetryAfter) {
+        this.sheddingRetryAfter = sheddingRetryAfter;
+    }
+
+    // ************************
+    //
+    // Cloneable
+    //
+    // ************************
+
+    @Override
+    public KnativeHttpConfiguration copy() {
+        return (KnativeHttpConfiguration)super.copy();
+    }
+}
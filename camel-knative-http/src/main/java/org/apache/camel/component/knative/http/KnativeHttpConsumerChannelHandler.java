@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AttributeKey;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.netty4.http.NettyHttpConsumer;
+import org.apache.camel.component.netty4.http.handlers.HttpServerChannelHandler;
+import org.apache.camel.spi.Synchronization;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * A {@link HttpServerChannelHandler} that sheds the requests exceeding the number of
+ * exchanges allowed to be in flight for the consumer or for the port it is bound to.
+ *
+ * Shed requests are answered straight away with the configured status code and a
+ * Retry-After header so the caller can retry elsewhere, without creating an exchange.
+ */
+class KnativeHttpConsumerChannelHandler extends HttpServerChannelHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KnativeHttpConsumerChannelHandler.class);
+    private static final AttributeKey<Permit> PERMIT_KEY = AttributeKey.valueOf(KnativeHttpConsumerChannelHandler.class, "permit");
+
+    private final KnativeHttpConcurrencyLimiter portLimiter;
+    private final KnativeHttpConcurrencyLimiter limiter;
+    private final HttpResponseStatus sheddingStatus;
+    private final int sheddingRetryAfter;
+
+    KnativeHttpConsumerChannelHandler(NettyHttpConsumer consumer, KnativeHttpConcurrencyLimiter portLimiter) {
+        super(consumer);
+
+        final KnativeHttpConfiguration configuration = consumer.getConfiguration() instanceof KnativeHttpConfiguration
+            ? (KnativeHttpConfiguration)consumer.getConfiguration()
+            : new KnativeHttpConfiguration();
+
+        this.portLimiter = portLimiter;
+        this.limiter = new KnativeHttpConcurrencyLimiter(configuration.getMaxInflightExchanges());
+        this.sheddingStatus = HttpResponseStatus.valueOf(configuration.getSheddingStatusCode());
+        this.sheddingRetryAfter = configuration.getSheddingRetryAfter();
+    }
+
+    KnativeHttpConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!portLimiter.tryAcquire()) {
+            shed(ctx, "port");
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            portLimiter.release();
+            shed(ctx, "consumer");
+            return;
+        }
+
+        final Permit permit = new Permit();
+
+        // the permit is handed over to the exchange, if any, in beforeProcess and
+        // released when the exchange is done, otherwise the request has been answered
+        // straight away and the permit is released here.
+        ctx.channel().attr(PERMIT_KEY).set(permit);
+
+        try {
+            super.channelRead0(ctx, msg);
+        } finally {
+            final Permit unused = ctx.channel().attr(PERMIT_KEY).getAndSet(null);
+            if (unused != null) {
+                unused.release();
+            }
+        }
+    }
+
+    @Override
+    protected void beforeProcess(Exchange exchange, ChannelHandlerContext ctx, Object message) {
+        super.beforeProcess(exchange, ctx, message);
+
+        final Permit permit = ctx.channel().attr(PERMIT_KEY).getAndSet(null);
+        if (permit != null) {
+            exchange.addOnCompletion(permit);
+        }
+    }
+
+    private void shed(ChannelHandlerContext ctx, String scope) {
+        LOGGER.debug("Too many exchanges in flight for {} {}, shedding request", scope, getConsumer().getEndpoint());
+
+        HttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, sheddingStatus);
+        response.headers().set(Exchange.CONTENT_TYPE, "text/plain");
+        response.headers().set(Exchange.CONTENT_LENGTH, 0);
+
+        if (sheddingRetryAfter > 0) {
+            response.headers().set(HttpHeaderNames.RETRY_AFTER, sheddingRetryAfter);
+        }
+
+        ctx.writeAndFlush(response);
+        ctx.close();
+    }
+
+    private final class Permit implements Synchronization {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(Exchange exchange) {
+            release();
+        }
+
+        @Override
+        public void onFailure(Exchange exchange) {
+            release();
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+                portLimiter.release();
+            }
+        }
+    }
+}
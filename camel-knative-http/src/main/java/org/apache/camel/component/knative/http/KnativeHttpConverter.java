@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.apache.camel.Exchange;
+import org.apache.camel.TypeConversionException;
+import org.apache.camel.spi.TypeConverterRegistry;
+import org.apache.camel.support.TypeConverterSupport;
+
+/**
+ * Converters for the read-only buffer views bound to the message by consumers
+ * configured with zeroCopy.
+ *
+ * They are registered for the exact type returned by {@link ByteBuf#asReadOnly()}
+ * so they take precedence over the generic netty converters, which consume the
+ * buffer, but only for bodies created by this component. The buffer is never copied
+ * to obtain a stream, nor to obtain a nio buffer unless the request content has been
+ * received in more than a chunk, and its reader index is left untouched so the body
+ * can be read more than once.
+ */
+public final class KnativeHttpConverter {
+    private static final Class<?> READ_ONLY_TYPE = readOnlyType();
+
+    private static final ReadOnlyConverter TO_INPUT_STREAM = new ReadOnlyConverter() {
+        @Override
+        protected Object convert(ByteBuf buffer, Exchange exchange) {
+            return new ByteBufInputStream(buffer.duplicate());
+        }
+    };
+    private static final ReadOnlyConverter TO_BYTE_BUFFER = new ReadOnlyConverter() {
+        @Override
+        protected Object convert(ByteBuf buffer, Exchange exchange) {
+            return buffer.nioBuffer();
+        }
+    };
+    private static final ReadOnlyConverter TO_BYTE_ARRAY = new ReadOnlyConverter() {
+        @Override
+        protected Object convert(ByteBuf buffer, Exchange exchange) {
+            return ByteBufUtil.getBytes(buffer);
+        }
+    };
+    private static final ReadOnlyConverter TO_STRING = new ReadOnlyConverter() {
+        @Override
+        protected Object convert(ByteBuf buffer, Exchange exchange) {
+            final byte[] bytes = ByteBufUtil.getBytes(buffer);
+
+            if (exchange != null) {
+                return exchange.getContext().getTypeConverter().convertTo(String.class, exchange, bytes);
+            }
+
+            return new String(bytes);
+        }
+    };
+
+    private KnativeHttpConverter() {
+    }
+
+    /**
+     * Registers the converters, the registration is a no-op if they are already
+     * registered.
+     */
+    public static void register(TypeConverterRegistry registry) {
+        registry.addTypeConverter(InputStream.class, READ_ONLY_TYPE, TO_INPUT_STREAM);
+        registry.addTypeConverter(ByteBuffer.class, READ_ONLY_TYPE, TO_BYTE_BUFFER);
+        registry.addTypeConverter(byte[].class, READ_ONLY_TYPE, TO_BYTE_ARRAY);
+        registry.addTypeConverter(String.class, READ_ONLY_TYPE, TO_STRING);
+    }
+
+    private static Class<?> readOnlyType() {
+        final ByteBuf buffer = Unpooled.buffer(0);
+
+        try {
+            return buffer.asReadOnly().getClass();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private abstract static class ReadOnlyConverter extends TypeConverterSupport {
+        @Override
+        public <T> T convertTo(Class<T> type, Exchange exchange, Object value) throws TypeConversionException {
+            return type.cast(convert((ByteBuf) value, exchange));
+        }
+
+        protected abstract Object convert(ByteBuf buffer, Exchange exchange);
+    }
+}
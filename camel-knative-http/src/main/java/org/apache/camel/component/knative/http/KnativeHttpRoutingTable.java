@@ -0,0 +1,406 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import org.apache.camel.component.netty4.http.NettyHttpConsumer;
+import org.apache.camel.component.netty4.http.handlers.HttpServerChannelHandler;
+import org.apache.camel.k.adapter.Exceptions;
+import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.URISupport;
+
+/**
+ * An immutable index of the consumers bound to a port, rebuilt each time a consumer
+ * is added or removed so that dispatching a request requires neither parsing the
+ * consumers endpoint uri nor scanning all the consumers.
+ *
+ * Consumers are indexed by their normalized context path, in a hash table for exact
+ * matches and in a prefix trie for those configured with matchOnUriPrefix, then by
+ * the filter header name/value they eventually declare. When more than a consumer
+ * accepts a request, the first one registered wins.
+ */
+final class KnativeHttpRoutingTable {
+    static final KnativeHttpRoutingTable EMPTY = new KnativeHttpRoutingTable(Collections.emptyMap(), new Node());
+
+    private final Map<String, Bucket> exact;
+    private final Node prefixes;
+
+    private KnativeHttpRoutingTable(Map<String, Bucket> exact, Node prefixes) {
+        this.exact = exact;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * Find the handler that should process a request.
+     *
+     * @param path the request path as computed by {@code pathAsKey}
+     * @param headers the request headers
+     * @param method the request method
+     * @return the handler or null if no consumer accepts the request
+     */
+    HttpServerChannelHandler lookup(String path, HttpHeaders headers, String method) {
+        final String key = normalize(path);
+
+        Route answer = select(exact.get(key), headers, method, null);
+
+        Node node = prefixes;
+        for (int i = 0; node != null; i++) {
+            answer = select(node.bucket, headers, method, answer);
+
+            if (i == key.length()) {
+                break;
+            }
+
+            node = node.child(key.charAt(i));
+        }
+
+        return answer != null ? answer.handler : null;
+    }
+
+    /**
+     * Compute the HTTP methods allowed for a request, ignoring its actual method.
+     *
+     * @param path the request path as computed by {@code pathAsKey}
+     * @param headers the request headers
+     * @return the allowed methods, an empty set if no consumer accepts the request or
+     *         null if the resource accepts any method.
+     */
+    Set<String> allowedMethods(String path, HttpHeaders headers) {
+        final String key = normalize(path);
+        final Set<String> answer = new TreeSet<>();
+
+        if (collectMethods(exact.get(key), headers, answer)) {
+            return null;
+        }
+
+        Node node = prefixes;
+        for (int i = 0; node != null; i++) {
+            if (collectMethods(node.bucket, headers, answer)) {
+                return null;
+            }
+            if (i == key.length()) {
+                break;
+            }
+
+            node = node.child(key.charAt(i));
+        }
+
+        return answer;
+    }
+
+    // *********************************
+    //
+    // Builder
+    //
+    // *********************************
+
+    static KnativeHttpRoutingTable build(Collection<? extends HttpServerChannelHandler> handlers) {
+        final Map<String, List<Route>> exact = new HashMap<>();
+        final Map<String, List<Route>> prefixes = new HashMap<>();
+
+        int order = 0;
+        for (HttpServerChannelHandler handler : handlers) {
+            final Route route = Route.of(handler, order++);
+            final NettyHttpConsumer consumer = handler.getConsumer();
+            final String key = normalize(consumer.getConfiguration().getPath());
+
+            if (consumer.getEndpoint().getConfiguration().isMatchOnUriPrefix()) {
+                prefixes.computeIfAbsent(key, k -> new ArrayList<>()).add(route);
+            } else {
+                exact.computeIfAbsent(key, k -> new ArrayList<>()).add(route);
+            }
+        }
+
+        final Map<String, Bucket> exactIndex = new HashMap<>();
+        exact.forEach((k, v) -> exactIndex.put(k, Bucket.of(v)));
+
+        final MutableNode root = new MutableNode();
+        prefixes.forEach((k, v) -> {
+            MutableNode node = root;
+            for (int i = 0; i < k.length(); i++) {
+                node = node.children.computeIfAbsent(k.charAt(i), c -> new MutableNode());
+            }
+            node.bucket = Bucket.of(v);
+        });
+
+        return new KnativeHttpRoutingTable(exactIndex, root.freeze());
+    }
+
+    // *********************************
+    //
+    // Helpers
+    //
+    // *********************************
+
+    private static Route select(Bucket bucket, HttpHeaders headers, String method, Route current) {
+        if (bucket == null) {
+            return current;
+        }
+
+        Route answer = current;
+
+        Route candidate = first(bucket.unfiltered, method);
+        if (candidate != null && (answer == null || candidate.order < answer.order)) {
+            answer = candidate;
+        }
+
+        for (int i = 0; i < bucket.filterNames.length; i++) {
+            final String value = headers.get(bucket.filterNames[i]);
+            if (ObjectHelper.isEmpty(value)) {
+                continue;
+            }
+
+            candidate = first(bucket.filterValues[i].get(value), method);
+            if (candidate != null && (answer == null || candidate.order < answer.order)) {
+                answer = candidate;
+            }
+        }
+
+        return answer;
+    }
+
+    private static Route first(Route[] routes, String method) {
+        if (routes != null) {
+            for (Route route : routes) {
+                if (route.accept(method)) {
+                    return route;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean collectMethods(Bucket bucket, HttpHeaders headers, Set<String> methods) {
+        if (bucket == null) {
+            return false;
+        }
+        if (collectMethods(bucket.unfiltered, methods)) {
+            return true;
+        }
+
+        for (int i = 0; i < bucket.filterNames.length; i++) {
+            final String value = headers.get(bucket.filterNames[i]);
+            if (ObjectHelper.isEmpty(value)) {
+                continue;
+            }
+            if (collectMethods(bucket.filterValues[i].get(value), methods)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean collectMethods(Route[] routes, Set<String> methods) {
+        if (routes != null) {
+            for (Route route : routes) {
+                if (route.methods == null) {
+                    return true;
+                }
+
+                methods.addAll(route.methods);
+            }
+        }
+
+        return false;
+    }
+
+    /*
+     * Normalize a path the same way RestConsumerContextPathMatcher.matchPath does,
+     * so leading and trailing slashes are ignored and the match is case insensitive.
+     */
+    private static String normalize(String path) {
+        if (path == null) {
+            return "";
+        }
+
+        int begin = 0;
+        int end = path.length();
+
+        if (end > 0 && path.charAt(0) == '/') {
+            begin++;
+        }
+        if (end > begin && path.charAt(end - 1) == '/') {
+            end--;
+        }
+
+        return path.substring(begin, end).toLowerCase(Locale.ENGLISH);
+    }
+
+    // *********************************
+    //
+    // Types
+    //
+    // *********************************
+
+    private static final class Route {
+        final HttpServerChannelHandler handler;
+        final int order;
+        final String filterName;
+        final String filterValue;
+        final Set<String> methods;
+
+        private Route(HttpServerChannelHandler handler, int order, String filterName, String filterValue, Set<String> methods) {
+            this.handler = handler;
+            this.order = order;
+            this.filterName = filterName;
+            this.filterValue = filterValue;
+            this.methods = methods;
+        }
+
+        boolean accept(String method) {
+            return methods == null || methods.contains(method);
+        }
+
+        static Route of(HttpServerChannelHandler handler, int order) {
+            final NettyHttpConsumer consumer = handler.getConsumer();
+
+            String filterName = null;
+            String filterValue = null;
+            Set<String> methods = null;
+
+            try {
+                final Map<String, Object> params = URISupport.parseParameters(URI.create(consumer.getEndpoint().getEndpointUri()));
+
+                if (params.containsKey("filter.headerName") && params.containsKey("filter.headerValue")) {
+                    filterName = (String)params.get("filter.headerName");
+                    filterValue = (String)params.get("filter.headerValue");
+                }
+            } catch (Exception e) {
+                throw Exceptions.wrapRuntimeCamelException(e);
+            }
+
+            final String restrict = consumer.getEndpoint().getHttpMethodRestrict();
+            if (ObjectHelper.isNotEmpty(restrict)) {
+                methods = new TreeSet<>();
+
+                for (String method : restrict.split(",")) {
+                    methods.add(method.trim().toUpperCase(Locale.US));
+                }
+
+                methods = Collections.unmodifiableSet(methods);
+            }
+
+            return new Route(handler, order, filterName, filterValue, methods);
+        }
+    }
+
+    private static final class Bucket {
+        final Route[] unfiltered;
+        final String[] filterNames;
+        final Map<String, Route[]>[] filterValues;
+
+        private Bucket(Route[] unfiltered, String[] filterNames, Map<String, Route[]>[] filterValues) {
+            this.unfiltered = unfiltered;
+            this.filterNames = filterNames;
+            this.filterValues = filterValues;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Bucket of(List<Route> routes) {
+            final List<Route> unfiltered = new ArrayList<>();
+            final Map<String, Map<String, List<Route>>> filtered = new LinkedHashMap<>();
+
+            for (Route route : routes) {
+                if (route.filterName == null) {
+                    unfiltered.add(route);
+                } else {
+                    filtered.computeIfAbsent(route.filterName, k -> new HashMap<>())
+                        .computeIfAbsent(route.filterValue, k -> new ArrayList<>())
+                        .add(route);
+                }
+            }
+
+            final String[] names = new String[filtered.size()];
+            final Map<String, Route[]>[] values = new Map[filtered.size()];
+
+            int i = 0;
+            for (Map.Entry<String, Map<String, List<Route>>> entry : filtered.entrySet()) {
+                final Map<String, Route[]> byValue = new HashMap<>();
+                entry.getValue().forEach((k, v) -> byValue.put(k, v.toArray(new Route[0])));
+
+                names[i] = entry.getKey();
+                values[i] = byValue;
+                i++;
+            }
+
+            return new Bucket(
+                unfiltered.isEmpty() ? null : unfiltered.toArray(new Route[0]),
+                names,
+                values
+            );
+        }
+    }
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        final char[] keys;
+        final Node[] children;
+        final Bucket bucket;
+
+        Node() {
+            this(NO_KEYS, NO_CHILDREN, null);
+        }
+
+        Node(char[] keys, Node[] children, Bucket bucket) {
+            this.keys = keys;
+            this.children = children;
+            this.bucket = bucket;
+        }
+
+        Node child(char c) {
+            final int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class MutableNode {
+        final TreeMap<Character, MutableNode> children = new TreeMap<>();
+        Bucket bucket;
+
+        Node freeze() {
+            final char[] keys = new char[children.size()];
+            final Node[] nodes = new Node[children.size()];
+
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().freeze();
+                i++;
+            }
+
+            return new Node(keys, nodes, bucket);
+        }
+    }
+}
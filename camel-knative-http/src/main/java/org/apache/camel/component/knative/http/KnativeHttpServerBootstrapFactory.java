@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import org.apache.camel.CamelContext;
+import org.apache.camel.component.netty4.NettyConsumer;
+import org.apache.camel.component.netty4.NettyServerBootstrapConfiguration;
+import org.apache.camel.component.netty4.NettyServerBossPoolBuilder;
+import org.apache.camel.component.netty4.NettyWorkerPoolBuilder;
+import org.apache.camel.component.netty4.http.HttpServerBootstrapFactory;
+import org.apache.camel.component.netty4.http.HttpServerConsumerChannelFactory;
+import org.apache.camel.util.CamelContextHelper;
+import org.apache.camel.util.EndpointHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link HttpServerBootstrapFactory} that also checks that the consumers sharing a
+ * port agree on the transport options which are not part of the standard netty
+ * bootstrap configuration.
+ *
+ * When the native transport is in use and more than an acceptor is configured, the
+ * port is bound by as many listening sockets with SO_REUSEPORT, each one registered
+ * to its own event loop, so the kernel spreads the incoming connections among them.
+ */
+public class KnativeHttpServerBootstrapFactory extends HttpServerBootstrapFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KnativeHttpServerBootstrapFactory.class);
+
+    private final int port;
+    private final boolean h2c;
+    private final int acceptorCount;
+
+    private CamelContext camelContext;
+    private NettyServerBootstrapConfiguration configuration;
+    private ChannelInitializer<Channel> pipelineFactory;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+
+    public KnativeHttpServerBootstrapFactory(HttpServerConsumerChannelFactory channelFactory, NettyConsumer consumer) {
+        super(channelFactory);
+
+        this.port = consumer.getConfiguration().getPort();
+        this.h2c = isH2c(consumer);
+        this.acceptorCount = acceptorCount(consumer);
+    }
+
+    @Override
+    public void init(CamelContext camelContext, NettyServerBootstrapConfiguration configuration, ChannelInitializer<Channel> pipelineFactory) {
+        super.init(camelContext, configuration, pipelineFactory);
+
+        this.camelContext = camelContext;
+        this.configuration = configuration;
+        this.pipelineFactory = pipelineFactory;
+    }
+
+    @Override
+    public void addConsumer(NettyConsumer consumer) {
+        if (h2c != isH2c(consumer) || acceptorCount != acceptorCount(consumer)) {
+            throw new IllegalArgumentException(
+                "Transport configuration must be identical when adding additional consumer: " + consumer.getEndpoint() + " on same port: " + port
+                + ".\n  Existing h2c=" + h2c + ", acceptorCount=" + acceptorCount
+                + "\n       New h2c=" + isH2c(consumer) + ", acceptorCount=" + acceptorCount(consumer));
+        }
+
+        super.addConsumer(consumer);
+    }
+
+    @Override
+    protected void startServerBootstrap() throws Exception {
+        if (!configuration.isNativeTransport() || acceptorCount <= 1) {
+            super.startServerBootstrap();
+            return;
+        }
+
+        EventLoopGroup bg = configuration.getBossGroup();
+        EventLoopGroup wg = configuration.getWorkerGroup();
+
+        if (bg == null) {
+            bg = bossGroup = new NettyServerBossPoolBuilder()
+                .withNativeTransport(true)
+                .withBossCount(acceptorCount)
+                .withName("NettyServerTCPBoss")
+                .build();
+        }
+        if (wg == null) {
+            wg = workerGroup = new NettyWorkerPoolBuilder()
+                .withNativeTransport(true)
+                .withWorkerCount(configuration.getWorkerCount())
+                .withName("NettyServerTCPWorker")
+                .build();
+        }
+
+        ServerBootstrap bootstrap = new ServerBootstrap();
+        bootstrap.group(bg, wg).channel(EpollServerSocketChannel.class);
+        bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        bootstrap.option(ChannelOption.SO_REUSEADDR, configuration.isReuseAddress());
+        bootstrap.childOption(ChannelOption.SO_KEEPALIVE, configuration.isKeepAlive());
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, configuration.isTcpNoDelay());
+        bootstrap.childOption(ChannelOption.SO_REUSEADDR, configuration.isReuseAddress());
+        bootstrap.childOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, configuration.getConnectTimeout());
+
+        if (configuration.getBacklog() > 0) {
+            bootstrap.option(ChannelOption.SO_BACKLOG, configuration.getBacklog());
+        }
+
+        applyOptions(bootstrap);
+
+        bootstrap.childHandler(pipelineFactory);
+
+        LOGGER.info("ServerBootstrap binding {} acceptors to {}:{}", acceptorCount, configuration.getHost(), configuration.getPort());
+
+        // each bind registers the listening socket to the next event loop of
+        // the boss group, so every acceptor gets its own thread.
+        final List<Channel> acceptors = new ArrayList<>(acceptorCount);
+        for (int i = 0; i < acceptorCount; i++) {
+            acceptors.add(bootstrap.bind(new InetSocketAddress(configuration.getHost(), configuration.getPort())).sync().channel());
+        }
+
+        acceptors.forEach(this::addChannel);
+    }
+
+    @Override
+    protected void stopServerBootstrap() {
+        super.stopServerBootstrap();
+
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+            bossGroup = null;
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+            workerGroup = null;
+        }
+    }
+
+    static boolean isH2c(NettyConsumer consumer) {
+        return consumer.getConfiguration() instanceof KnativeHttpConfiguration
+            && ((KnativeHttpConfiguration)consumer.getConfiguration()).isH2c();
+    }
+
+    static int acceptorCount(NettyConsumer consumer) {
+        return consumer.getConfiguration() instanceof KnativeHttpConfiguration
+            ? ((KnativeHttpConfiguration)consumer.getConfiguration()).getAcceptorCount()
+            : 1;
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    @SuppressWarnings("unchecked")
+    private void applyOptions(ServerBootstrap bootstrap) {
+        final Map<String, Object> options = configuration.getOptions();
+        if (options == null) {
+            return;
+        }
+
+        // same as SingleTCPNettyServerBootstrapFactory
+        for (Map.Entry<String, Object> entry : options.entrySet()) {
+            final String value = entry.getValue().toString();
+            final ChannelOption<Object> option = ChannelOption.valueOf(entry.getKey());
+
+            if (EndpointHelper.isReferenceParameter(value)) {
+                bootstrap.option(option, CamelContextHelper.mandatoryLookup(camelContext, value.substring(1)));
+            } else {
+                bootstrap.option(option, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2MultiplexCodec;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.apache.camel.component.netty4.NettyConsumer;
+import org.apache.camel.component.netty4.ServerInitializerFactory;
+import org.apache.camel.component.netty4.http.HttpServerInitializerFactory;
+import org.apache.camel.component.netty4.http.NettyHttpConsumer;
+
+/**
+ * A {@link HttpServerInitializerFactory} that, when h2c is enabled, configures the
+ * pipeline to accept HTTP/2 over cleartext connections in addition to HTTP/1.1.
+ *
+ * Each HTTP/2 stream gets its own child channel whose pipeline translates the stream
+ * frames to HTTP/1.1 objects, so requests are dispatched to the consumers by the same
+ * multiplex handler for both protocol versions.
+ *
+ * When streaming is enabled, the aggregator is replaced by a {@link KnativeHttpStreamingHandler}
+ * so requests are dispatched as soon as their headers are received.
+ *
+ * SSL, compression and custom encoders/decoders are not supported in h2c mode.
+ */
+public class KnativeHttpServerInitializerFactory extends HttpServerInitializerFactory {
+    public KnativeHttpServerInitializerFactory() {
+    }
+
+    public KnativeHttpServerInitializerFactory(NettyHttpConsumer consumer) {
+        super(consumer);
+
+        if (isH2c() && consumer.getConfiguration().isSsl()) {
+            throw new IllegalArgumentException("h2c can't be enabled on a ssl endpoint: " + consumer.getEndpoint());
+        }
+        if (isStreaming() && !consumer.getConfiguration().isUsingExecutorService()) {
+            throw new IllegalArgumentException("streaming requires usingExecutorService to be enabled: " + consumer.getEndpoint());
+        }
+    }
+
+    @Override
+    public ServerInitializerFactory createPipelineFactory(NettyConsumer consumer) {
+        return new KnativeHttpServerInitializerFactory((NettyHttpConsumer)consumer);
+    }
+
+    @Override
+    protected void initChannel(Channel ch) throws Exception {
+        if (!isH2c()) {
+            super.initChannel(ch);
+
+            if (isStreaming()) {
+                ch.pipeline().replace("aggregator", "aggregator", aggregator());
+            }
+
+            return;
+        }
+
+        final HttpServerCodec codec = new HttpServerCodec(4096, configuration.getMaxHeaderSize(), 8192);
+        final HttpServerUpgradeHandler upgrade = new HttpServerUpgradeHandler(codec, protocol -> {
+            return AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)
+                ? new Http2ServerUpgradeCodec(http2())
+                : null;
+        }, configuration.getChunkedMaxContentLength());
+
+        ChannelPipeline pipeline = ch.pipeline();
+        pipeline.addLast("h2c", new CleartextHttp2ServerUpgradeHandler(codec, upgrade, http2()));
+        pipeline.addLast("http1", new Http1Handler());
+    }
+
+    private boolean isH2c() {
+        return configuration instanceof KnativeHttpConfiguration && ((KnativeHttpConfiguration)configuration).isH2c();
+    }
+
+    private boolean isStreaming() {
+        return configuration instanceof KnativeHttpConfiguration && ((KnativeHttpConfiguration)configuration).isStreaming();
+    }
+
+    private Http2MultiplexCodec http2() {
+        return Http2MultiplexCodecBuilder.forServer(new StreamInitializer()).build();
+    }
+
+    private ChannelHandler aggregator() {
+        return isStreaming()
+            ? new KnativeHttpStreamingHandler(((KnativeHttpConfiguration)configuration).getStreamingBufferSize())
+            : new HttpObjectAggregator(configuration.getChunkedMaxContentLength());
+    }
+
+    private ChannelHandler handler() {
+        return consumer.getEndpoint().getComponent().getMultiplexChannelHandler(configuration.getPort()).getChannelHandler();
+    }
+
+    /*
+     * Same as HttpServerInitializerFactory, the consumer runs on the executor group of
+     * the component if configured to do so.
+     */
+    private EventExecutorGroup executor() {
+        return configuration.isUsingExecutorService()
+            ? consumer.getEndpoint().getComponent().getExecutorService()
+            : null;
+    }
+
+    /*
+     * Configures the pipeline of the child channel created for each HTTP/2 stream.
+     */
+    private final class StreamInitializer extends ChannelInitializer<Channel> {
+        @Override
+        protected void initChannel(Channel ch) throws Exception {
+            ChannelPipeline pipeline = ch.pipeline();
+            pipeline.addLast("codec", new Http2StreamFrameToHttpObjectCodec(true));
+            pipeline.addLast("aggregator", aggregator());
+            pipeline.addLast(executor(), "handler", handler());
+        }
+    }
+
+    /*
+     * Invoked when the client does neither send the HTTP/2 connection preface nor ask
+     * for an upgrade, configures the rest of the pipeline for HTTP/1.1.
+     */
+    private final class Http1Handler extends SimpleChannelInboundHandler<HttpMessage> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, HttpMessage msg) throws Exception {
+            ChannelPipeline pipeline = ctx.pipeline();
+            pipeline.addAfter(executor(), ctx.name(), "handler", handler());
+            pipeline.addAfter(ctx.name(), "aggregator", aggregator());
+            pipeline.remove(this);
+
+            ctx.fireChannelRead(ReferenceCountUtil.retain(msg));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.nio.channels.ClosedChannelException;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Replaces the {@link io.netty.handler.codec.http.HttpObjectAggregator} on streaming
+ * consumers: the request is propagated as soon as its headers are received, with an
+ * empty content, and the following chunks are appended to a {@link KnativeHttpBodyStream}
+ * bound to the request.
+ *
+ * It must run on the channel event loop, while the consumer must run on a different
+ * executor as reading the body blocks till the chunks are received.
+ */
+final class KnativeHttpStreamingHandler extends ChannelInboundHandlerAdapter {
+    private final int bufferSize;
+    private KnativeHttpBodyStream body;
+
+    KnativeHttpStreamingHandler(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof FullHttpRequest) {
+            // nothing to stream, the request has been received at once
+            ctx.fireChannelRead(msg);
+        } else if (msg instanceof HttpRequest) {
+            final HttpRequest request = (HttpRequest)msg;
+
+            if (HttpUtil.is100ContinueExpected(request)) {
+                ctx.writeAndFlush(new DefaultFullHttpResponse(request.protocolVersion(), HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+                request.headers().remove(HttpHeaderNames.EXPECT);
+            }
+
+            body = new KnativeHttpBodyStream(ctx.channel(), bufferSize);
+
+            ctx.fireChannelRead(new StreamingRequest(request, body));
+        } else if (msg instanceof HttpContent) {
+            final HttpContent content = (HttpContent)msg;
+
+            try {
+                if (body != null) {
+                    body.offer(content.content().retain());
+
+                    if (content instanceof LastHttpContent) {
+                        body.complete();
+                        body = null;
+                    }
+                }
+            } finally {
+                content.release();
+            }
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (body != null) {
+            body.fail(new ClosedChannelException());
+            body = null;
+        }
+
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (body != null) {
+            body.fail(cause);
+            body = null;
+        }
+
+        ctx.fireExceptionCaught(cause);
+    }
+
+    /**
+     * A request whose content is empty as the body is streamed.
+     */
+    static final class StreamingRequest extends DefaultFullHttpRequest {
+        private final KnativeHttpBodyStream body;
+
+        StreamingRequest(HttpRequest request, KnativeHttpBodyStream body) {
+            super(request.protocolVersion(), request.method(), request.uri(), Unpooled.EMPTY_BUFFER, request.headers(), new DefaultHttpHeaders(false));
+
+            this.body = body;
+
+            setDecoderResult(request.decoderResult());
+        }
+
+        KnativeHttpBodyStream getBody() {
+            return body;
+        }
+    }
+}
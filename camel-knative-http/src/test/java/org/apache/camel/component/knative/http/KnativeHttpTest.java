@@ -0,0 +1,457 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.test.AvailablePortFinder;
+import org.apache.camel.util.IOHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KnativeHttpTest {
+
+    private CamelContext context;
+
+    // **************************
+    //
+    // Setup
+    //
+    // **************************
+
+    @BeforeEach
+    public void before() {
+        this.context = new DefaultCamelContext();
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        if (this.context != null) {
+            this.context.stop();
+        }
+    }
+
+    // **************************
+    //
+    // Tests
+    //
+    // **************************
+
+    @Test
+    void testDispatchByMethod() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path?httpMethodRestrict=GET", port)
+                    .setBody().constant("get")
+                    .to("mock:get");
+                fromF("knative-http:http://localhost:%d/a/path?httpMethodRestrict=POST", port)
+                    .setBody().constant("post")
+                    .to("mock:post");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:post", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+
+        Exchange post = send(port, "/a/path", "POST");
+        assertThat(post.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        assertThat(post.getOut().getBody(String.class)).isEqualTo("post");
+
+        Exchange put = send(port, "/a/path", "PUT");
+        assertThat(put.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(405);
+        assertThat(put.getOut().getHeader("Allow")).isEqualTo("GET,POST");
+
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    void testDispatchByPrefix() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path", port)
+                    .setBody().constant("exact");
+                fromF("knative-http:http://localhost:%d/a?matchOnUriPrefix=true", port)
+                    .setBody().constant("prefix");
+            }
+        });
+
+        context.start();
+
+        assertThat(send(port, "/a/path", "POST").getOut().getBody(String.class)).isEqualTo("exact");
+        assertThat(send(port, "/A/Path/", "POST").getOut().getBody(String.class)).isEqualTo("exact");
+        assertThat(send(port, "/a/another/path", "POST").getOut().getBody(String.class)).isEqualTo("prefix");
+        assertThat(send(port, "/b", "POST").getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(404);
+    }
+
+    @Test
+    void testZeroCopy() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final AtomicReference<ByteBuf> content = new AtomicReference<>();
+
+        context.getComponent("knative-http", KnativeHttpComponent.class).setZeroCopy(true);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path", port)
+                    .process(e -> {
+                        ByteBuf buffer = e.getIn().getBody(ByteBuf.class);
+                        content.set(buffer);
+
+                        assertThat(buffer.isReadOnly()).isTrue();
+                        assertThat(buffer.refCnt()).isPositive();
+                        assertThat(e.getIn().getBody(String.class)).isEqualTo("test");
+                        assertThat(e.getIn().getBody(ByteBuffer.class).remaining()).isEqualTo(4);
+                        assertThat(e.getIn().getBody(InputStream.class)).hasSameContentAs(new ByteArrayInputStream("test".getBytes()));
+                        assertThat(e.getIn().getBody(String.class)).isEqualTo("test");
+                    })
+                    .setBody().constant("done");
+            }
+        });
+
+        context.start();
+
+        Exchange exchange = send(port, "/a/path", "POST");
+        assertThat(exchange.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        assertThat(exchange.getOut().getBody(String.class)).isEqualTo("done");
+        assertThat(content.get()).isNotNull();
+
+        // the buffer is released once the exchange is done, which may happen
+        // after the response has been sent back to the client
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (content.get().refCnt() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(content.get().refCnt()).isZero();
+    }
+
+    @Test
+    void testProducerHeaders() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path", port)
+                    .to("mock:consumer");
+                from("direct:start")
+                    .toF("knative-http:http://localhost:%d/a/path?useRelativePath=true", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:consumer", MockEndpoint.class);
+        mock.expectedMessageCount(2);
+        mock.expectedBodiesReceived("test1", "test2");
+        mock.expectedHeaderReceived("Host", "localhost:" + port);
+        mock.expectedHeaderReceived("Connection", "keep-alive");
+        mock.expectedHeaderReceived("MyHeader", "my-value");
+        mock.expectedHeaderReceived("MyNumber", "1");
+        mock.expectedHeaderReceived(Exchange.HTTP_URI, "/a/path");
+        mock.expectedMessagesMatches(e -> !e.getIn().getHeaders().containsKey("CamelMyHeader"));
+
+        for (int i = 1; i <= 2; i++) {
+            final String body = "test" + i;
+
+            context.createProducerTemplate().send("direct:start", e -> {
+                e.getIn().setHeader("MyHeader", "my-value");
+                e.getIn().setHeader("MyNumber", 1);
+                e.getIn().setHeader("CamelMyHeader", "my-value");
+                e.getIn().setBody(body);
+            });
+        }
+
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    void testProducerBufferBody() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path", port)
+                    .to("mock:consumer");
+                from("direct:start")
+                    .toF("knative-http:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:consumer", MockEndpoint.class);
+        mock.expectedBodiesReceived("test", "test");
+
+        // the buffer is owned by the message, netty only releases the references
+        // it is given so the body can be sent more than once
+        final ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer();
+        buffer.writeCharSequence("test", StandardCharsets.UTF_8);
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                context.createProducerTemplate().send("direct:start", e -> e.getIn().setBody(buffer));
+            }
+
+            mock.assertIsSatisfied();
+
+            assertThat(buffer.refCnt()).isEqualTo(1);
+            assertThat(buffer.readableBytes()).isEqualTo(4);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    void testH2c() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        context.getComponent("knative-http", KnativeHttpComponent.class).setH2c(true);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path", port)
+                    .to("mock:consumer")
+                    .transform().simple("${body}-reply");
+                from("direct:start")
+                    .toF("knative-http:http://localhost:%d/a/path?useRelativePath=true", port);
+            }
+        });
+
+        context.start();
+
+        final int count = 10;
+
+        MockEndpoint mock = context.getEndpoint("mock:consumer", MockEndpoint.class);
+        mock.expectedMessageCount(count);
+        mock.expectedHeaderReceived("Host", "localhost:" + port);
+        mock.expectedMessagesMatches(e -> e.getIn().getHeaders().containsKey("x-http2-stream-id"));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(count);
+        final List<Future<String>> replies = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < count; i++) {
+                final String body = "test" + i;
+
+                replies.add(executor.submit(
+                    () -> context.createProducerTemplate().requestBody("direct:start", body, String.class)
+                ));
+            }
+
+            for (int i = 0; i < count; i++) {
+                assertThat(replies.get(i).get(10, TimeUnit.SECONDS)).isEqualTo("test" + i + "-reply");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        mock.assertIsSatisfied();
+
+        // plain HTTP/1.1 clients are still accepted
+        Exchange exchange = send(port, "/a/path", "POST");
+        assertThat(exchange.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        assertThat(exchange.getOut().getBody(String.class)).isEqualTo("test-reply");
+    }
+
+    @Test
+    void testNativeTransport() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        component.setNativeTransport(true);
+        component.setAcceptorCount(2);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path", port)
+                    .setBody().constant("a");
+                fromF("knative-http:http://localhost:%d/b/path", port)
+                    .setBody().constant("b");
+            }
+        });
+
+        context.start();
+
+        // the transport falls back to NIO if epoll is not available
+        // so the consumer must work in any case
+        for (int i = 0; i < 10; i++) {
+            assertThat(send(port, "/a/path", "POST").getOut().getBody(String.class)).isEqualTo("a");
+            assertThat(send(port, "/b/path", "POST").getOut().getBody(String.class)).isEqualTo("b");
+        }
+    }
+
+    @Test
+    void testStreaming() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final int size = 1024 * 1024;
+        final CountDownLatch started = new CountDownLatch(1);
+
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+        component.setStreaming(true);
+        component.setStreamingBufferSize(16 * 1024);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path", port)
+                    .process(e -> {
+                        started.countDown();
+
+                        assertThat(e.getIn().getBody()).isInstanceOf(KnativeHttpBodyStream.class);
+
+                        long count = 0;
+                        try (InputStream in = e.getIn().getBody(InputStream.class)) {
+                            final byte[] buffer = new byte[4096];
+                            for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+                                count += n;
+                            }
+                        }
+
+                        e.getIn().setBody(Long.toString(count));
+                    });
+            }
+        });
+
+        context.start();
+
+        try (Socket socket = new Socket("localhost", port)) {
+            final OutputStream out = socket.getOutputStream();
+            final byte[] half = new byte[size / 2];
+
+            out.write(String.format("POST /a/path HTTP/1.1\r\nHost: localhost:%d\r\nContent-Length: %d\r\nConnection: close\r\n\r\n", port, size).getBytes(StandardCharsets.US_ASCII));
+            out.write(half);
+            out.flush();
+
+            // the exchange is created before the whole body is sent
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            out.write(half);
+            out.flush();
+
+            final String response = IOHelper.loadText(socket.getInputStream());
+            assertThat(response).startsWith("HTTP/1.1 200");
+            assertThat(response).endsWith(Integer.toString(size) + "\n");
+        }
+
+        // requests sent at once are streamed the same way
+        Exchange exchange = send(port, "/a/path", "POST");
+        assertThat(exchange.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+        assertThat(exchange.getOut().getBody(String.class)).isEqualTo("4");
+    }
+
+    @Test
+    void testLoadShedding() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        KnativeHttpComponent component = context.getComponent("knative-http", KnativeHttpComponent.class);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("knative-http:http://localhost:%d/a/path?maxInflightExchanges=1&sheddingRetryAfter=5", port)
+                    .process(e -> {
+                        started.countDown();
+                        release.await(10, TimeUnit.SECONDS);
+                    })
+                    .setBody().constant("done");
+            }
+        });
+
+        context.start();
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Exchange> first = executor.submit(() -> send(port, "/a/path", "POST"));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(component.getInflightExchanges()).isEqualTo(1);
+
+            Exchange shed = send(port, "/a/path", "POST");
+            assertThat(shed.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(503);
+            assertThat(shed.getOut().getHeader("Retry-After")).isEqualTo("5");
+            assertThat(component.getShedExchanges()).isEqualTo(1);
+
+            release.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS).getOut().getBody(String.class)).isEqualTo("done");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the permit is released once the exchange is done, which may happen
+        // after the response has been sent back to the client
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (component.getInflightExchanges() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(component.getInflightExchanges()).isZero();
+        assertThat(send(port, "/a/path", "POST").getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(200);
+    }
+
+    // **************************
+    //
+    // Helpers
+    //
+    // **************************
+
+    private Exchange send(int port, String path, String method) {
+        return context.createProducerTemplate().request(
+            String.format("netty4-http:http://localhost:%d%s?throwExceptionOnFailure=false", port, path),
+            e -> {
+                e.getIn().setHeader(Exchange.HTTP_METHOD, method);
+                e.getIn().setBody("test");
+            }
+        );
+    }
+}
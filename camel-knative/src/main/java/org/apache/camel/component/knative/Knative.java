@@ -30,10 +30,33 @@ public final class Knative {
     public static final String FILTER_HEADER_VALUE = "filter.header.value";
     public static final String CONTENT_TYPE = "content.type";
     public static final String MIME_STRUCTURED_CONTENT_MODE = "application/cloudevents+json";
+    public static final String MIME_BATCH_CONTENT_MODE = "application/cloudevents-batch+json";
+    public static final String PAYLOAD_ENCODING = "payload.encoding";
 
     public static final String SERVICE_META_HOST = "service.host";
     public static final String SERVICE_META_ZONE = "service.zone";
     public static final String SERVICE_META_PATH = "service.path";
+    public static final String SERVICE_META_HOSTS = "service.hosts";
+
+    public static final String POOL_MAX_CONNECTIONS = "pool.max.connections";
+    public static final String POOL_IDLE_TIMEOUT = "pool.idle.timeout";
+    public static final String POOL_MAX_PENDING_ACQUIRES = "pool.max.pending.acquires";
+    public static final String POOL_ACQUIRE_TIMEOUT = "pool.acquire.timeout";
+    public static final String HTTP_H2C = "http.h2c";
+    public static final String PRODUCER_LOAD_BALANCER = "producer.load.balancer";
+    public static final String PRODUCER_HEDGE_DELAY = "producer.hedge.delay";
+    public static final String PRODUCER_HEDGE_DELAY_PERCENTILE = "producer.hedge.delay.percentile";
+    public static final String PRODUCER_BATCH_SIZE = "producer.batch.size";
+    public static final String PRODUCER_BATCH_LINGER_TIME = "producer.batch.linger.time";
+    public static final String CONSUMER_MAX_INFLIGHT_EXCHANGES = "consumer.max.inflight.exchanges";
+    public static final String CONSUMER_CONCURRENCY_LIMIT = "consumer.concurrency.limit";
+    public static final String CONSUMER_DISPATCH_POOL_SIZE = "consumer.dispatch.pool.size";
+    public static final String CONSUMER_DISPATCH_QUEUE_SIZE = "consumer.dispatch.queue.size";
+    public static final String CONSUMER_DEDUPLICATION_CACHE_SIZE = "consumer.deduplication.cache.size";
+    public static final String CONSUMER_DEDUPLICATION_TTL = "consumer.deduplication.ttl";
+    public static final String CONSUMER_BATCH_PARALLELISM = "consumer.batch.parallelism";
+    public static final String CONSUMER_AGGREGATION_SIZE = "consumer.aggregation.size";
+    public static final String CONSUMER_AGGREGATION_TIMEOUT = "consumer.aggregation.timeout";
 
     private Knative() {
     }
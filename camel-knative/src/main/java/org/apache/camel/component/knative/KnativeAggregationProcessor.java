@@ -0,0 +1,381 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.k.adapter.Exchanges;
+import org.apache.camel.k.adapter.Processors;
+import org.apache.camel.k.adapter.ServiceSupport;
+import org.apache.camel.k.adapter.Services;
+
+/**
+ * Aggregates the events received by a knative consumer into a single exchange whose body is
+ * the list of their bodies, so routes writing to bulk friendly sinks get the events in
+ * batches without losing the acknowledgement of each event.
+ *
+ * An aggregate is routed once it holds size events or timeout millis after its first event
+ * has been received, whichever comes first. The events wait for the aggregate to complete
+ * before being answered, with the failure of the aggregate or with its response code.
+ *
+ * The timer only takes the aggregates completed by the timeout, they are routed by the
+ * dispatch workers of the consumer if any, otherwise by workers of their own, so a route
+ * blocking on a bulk write does not delay the timeouts of the next aggregates.
+ *
+ * Like the aggregator EIP with groupExchanges, the aggregate holds the events in the
+ * CamelGroupedExchange property so their headers remain available to the route.
+ */
+final class KnativeAggregationProcessor extends ServiceSupport implements AsyncProcessor {
+    static final String COMPLETED_BY_SIZE = "size";
+    static final String COMPLETED_BY_TIMEOUT = "timeout";
+
+    // sizes are counted in power of two buckets, the last one holding 512 events and more
+    private static final int BUCKETS = 10;
+
+    private final CamelContext context;
+    private final String name;
+    private final int size;
+    private final long timeout;
+    private final AsyncProcessor processor;
+    private final LongAdder aggregates;
+    private final LongAdder aggregated;
+    private final LongAdder timeouts;
+    private final LongAccumulator maxSize;
+    private final LongAdder[] sizes;
+
+    private List<Exchange> pending;
+    private List<AsyncCallback> callbacks;
+    private ScheduledFuture<?> timer;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService workers;
+    private KnativeDispatchProcessor dispatcher;
+
+    /**
+     * @param context the camel context
+     * @param name the name of the threads completing and routing the aggregates on timeout
+     * @param size the max number of events in an aggregate
+     * @param timeout the max time in millis an event waits for its aggregate to fill up
+     * @param processor routes the aggregates
+     */
+    KnativeAggregationProcessor(CamelContext context, String name, int size, long timeout, Processor processor) {
+        this.context = context;
+        this.name = name;
+        this.size = size;
+        this.timeout = timeout;
+        this.processor = Processors.convertToAsync(processor);
+        this.aggregates = new LongAdder();
+        this.aggregated = new LongAdder();
+        this.timeouts = new LongAdder();
+        this.maxSize = new LongAccumulator(Math::max, 0);
+        this.sizes = new LongAdder[BUCKETS];
+        this.pending = new ArrayList<>(size);
+        this.callbacks = new ArrayList<>(size);
+
+        for (int i = 0; i < BUCKETS; i++) {
+            this.sizes[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Processors.process(this, exchange);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        Aggregate aggregate = null;
+
+        synchronized (this) {
+            if (scheduler == null) {
+                exchange.setException(new RejectedExecutionException("Aggregation processor " + name + " is not started"));
+                callback.done(true);
+                return true;
+            }
+
+            pending.add(exchange);
+            callbacks.add(callback);
+
+            if (pending.size() >= size) {
+                aggregate = take(COMPLETED_BY_SIZE);
+            } else if (pending.size() == 1) {
+                final List<Exchange> current = pending;
+                timer = scheduler.schedule(() -> expire(current), timeout, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (aggregate != null) {
+            route(aggregate);
+        }
+
+        return false;
+    }
+
+    /**
+     * Route the aggregates completed by the timeout on the workers of the given dispatcher
+     * rather than on workers of this processor.
+     */
+    void setDispatcher(KnativeDispatchProcessor dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    // ************************
+    //
+    // Lifecycle
+    //
+    // ************************
+
+    @Override
+    protected void doStart() throws Exception {
+        Services.start(processor);
+
+        final ScheduledExecutorService executor = context.getExecutorServiceManager().newSingleThreadScheduledExecutor(this, name);
+        final ExecutorService pool = dispatcher == null ? context.getExecutorServiceManager().newDefaultThreadPool(this, name) : null;
+
+        synchronized (this) {
+            scheduler = executor;
+            workers = pool;
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        final ScheduledExecutorService executor;
+        final ExecutorService pool;
+        final Aggregate aggregate;
+
+        synchronized (this) {
+            executor = scheduler;
+            pool = workers;
+            aggregate = take(COMPLETED_BY_TIMEOUT);
+            scheduler = null;
+            workers = null;
+        }
+
+        if (executor != null) {
+            context.getExecutorServiceManager().shutdownNow(executor);
+        }
+        if (pool != null) {
+            context.getExecutorServiceManager().shutdownGraceful(pool);
+        }
+
+        // the graceful shutdown waits for the exchanges in flight, so the aggregates
+        // have normally been routed by now
+        reject(aggregate, new RejectedExecutionException("Aggregation processor " + name + " has been stopped"));
+
+        Services.stop(processor);
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    long getAggregates() {
+        return aggregates.sum();
+    }
+
+    long getMeanSize() {
+        final long count = aggregates.sum();
+        return count > 0 ? aggregated.sum() / count : 0;
+    }
+
+    long getMaxSize() {
+        return maxSize.get();
+    }
+
+    long getCompletedByTimeout() {
+        return timeouts.sum();
+    }
+
+    /**
+     * The number of aggregates per size range, like {@code 1=0, 2-3=4, 4-7=12, ..., 512+=0}.
+     */
+    String getSizeDistribution() {
+        final StringBuilder answer = new StringBuilder();
+
+        for (int i = 0; i < BUCKETS; i++) {
+            final int low = 1 << i;
+
+            if (i > 0) {
+                answer.append(", ");
+            }
+
+            if (i == BUCKETS - 1) {
+                answer.append(low).append('+');
+            } else if (i == 0) {
+                answer.append(low);
+            } else {
+                answer.append(low).append('-').append((low << 1) - 1);
+            }
+
+            answer.append('=').append(sizes[i].sum());
+        }
+
+        return answer.toString();
+    }
+
+    synchronized int getPendingExchanges() {
+        return pending.size();
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    private Aggregate take(String completedBy) {
+        final Aggregate answer = new Aggregate(pending, callbacks, completedBy);
+
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+
+        pending = new ArrayList<>(size);
+        callbacks = new ArrayList<>(size);
+
+        return answer;
+    }
+
+    private void expire(List<Exchange> events) {
+        final Aggregate aggregate;
+        final ExecutorService pool;
+
+        synchronized (this) {
+            // the aggregate has been filled up and routed in the meantime
+            if (pending != events) {
+                return;
+            }
+
+            timer = null;
+            aggregate = take(COMPLETED_BY_TIMEOUT);
+            pool = workers;
+        }
+
+        timeouts.increment();
+
+        try {
+            if (dispatcher != null) {
+                if (!dispatcher.execute(() -> route(aggregate))) {
+                    saturated(aggregate);
+                }
+            } else if (pool != null) {
+                pool.execute(() -> route(aggregate));
+            } else {
+                throw new RejectedExecutionException("Aggregation processor " + name + " has been stopped");
+            }
+        } catch (RejectedExecutionException e) {
+            reject(aggregate, e);
+        }
+    }
+
+    /*
+     * The dispatch queue is full, the saturation policy of the consumer applies.
+     */
+    private void saturated(Aggregate aggregate) {
+        if (dispatcher.getSaturationPolicy() == KnativeDispatchProcessor.SaturationPolicy.callerRuns) {
+            route(aggregate);
+            return;
+        }
+
+        for (int i = 0; i < aggregate.events.size(); i++) {
+            KnativeSupport.serviceUnavailable(aggregate.events.get(i));
+            aggregate.callbacks.get(i).done(false);
+        }
+    }
+
+    private static void reject(Aggregate aggregate, Exception cause) {
+        for (int i = 0; i < aggregate.events.size(); i++) {
+            aggregate.events.get(i).setException(cause);
+            aggregate.callbacks.get(i).done(false);
+        }
+    }
+
+    private void route(Aggregate aggregate) {
+        final List<Exchange> events = aggregate.events;
+        final Exchange first = events.get(0);
+        final Exchange exchange = Exchanges.newDefaultExchange(context);
+        final List<Object> bodies = new ArrayList<>(events.size());
+
+        // streams are read to byte arrays so the bodies do not depend on the netty
+        // buffers of the requests, released once the events are answered, and so the
+        // route can read them more than once
+        for (Exchange event : events) {
+            final Object body = event.getIn().getBody();
+            bodies.add(body instanceof InputStream ? event.getIn().getBody(byte[].class) : body);
+        }
+
+        exchange.setPattern(first.getPattern());
+        exchange.setProperty(Exchange.GROUPED_EXCHANGE, events);
+        exchange.setProperty(Exchange.AGGREGATED_SIZE, events.size());
+        exchange.setProperty(Exchange.AGGREGATED_COMPLETED_BY, aggregate.completedBy);
+        exchange.getIn().setBody(bodies);
+
+        aggregates.increment();
+        aggregated.add(events.size());
+        maxSize.accumulate(events.size());
+        sizes[Math.min(BUCKETS - 1, 31 - Integer.numberOfLeadingZeros(events.size()))].increment();
+
+        processor.process(exchange, doneSync -> {
+            final Message answer = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
+            final Object code = answer.getHeader(Exchange.HTTP_RESPONSE_CODE);
+
+            for (int i = 0; i < events.size(); i++) {
+                final Exchange event = events.get(i);
+
+                if (exchange.getException() != null) {
+                    event.setException(exchange.getException());
+                } else {
+                    final Message message = event.getPattern().isOutCapable() ? event.getOut() : event.getIn();
+                    message.setBody(null);
+                    message.setHeader(Exchange.HTTP_RESPONSE_CODE, code != null ? code : 200);
+                }
+
+                aggregate.callbacks.get(i).done(false);
+            }
+        });
+    }
+
+    private static final class Aggregate {
+        final List<Exchange> events;
+        final List<AsyncCallback> callbacks;
+        final String completedBy;
+
+        Aggregate(List<Exchange> events, List<AsyncCallback> callbacks, String completedBy) {
+            this.events = events;
+            this.callbacks = callbacks;
+            this.completedBy = completedBy;
+        }
+    }
+}
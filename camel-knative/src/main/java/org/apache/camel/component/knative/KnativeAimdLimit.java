@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An additive increase/multiplicative decrease limit: the limit grows by one each time an
+ * exchange is processed within latencyThreshold while the consumer is using at least half
+ * of it and is multiplied by backoffRatio each time an exchange takes longer or is dropped.
+ */
+public final class KnativeAimdLimit implements KnativeConcurrencyLimit {
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThreshold;
+    private int limit;
+
+    public KnativeAimdLimit(long latencyThreshold, TimeUnit unit) {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_BACKOFF_RATIO, latencyThreshold, unit);
+    }
+
+    public KnativeAimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThreshold, TimeUnit unit) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limits (initial: " + initialLimit + ", min: " + minLimit + ", max: " + maxLimit + ")");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be in the (0, 1) range: " + backoffRatio);
+        }
+
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThreshold = unit.toNanos(latencyThreshold);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rtt, int inflight, boolean dropped) {
+        if (dropped || rtt > latencyThreshold) {
+            limit = Math.max(minLimit, (int)(limit * backoffRatio));
+        } else if (inflight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KnativeAimdLimit[limit=" + limit + "]";
+    }
+}
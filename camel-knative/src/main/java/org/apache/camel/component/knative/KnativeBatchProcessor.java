@@ -0,0 +1,304 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.k.adapter.Exceptions;
+import org.apache.camel.k.adapter.Exchanges;
+import org.apache.camel.k.adapter.Processors;
+import org.apache.camel.k.adapter.ServiceSupport;
+import org.apache.camel.k.adapter.Services;
+
+/**
+ * Groups the structured events sent by a knative producer into batches, each sent to the
+ * sink as a single application/cloudevents-batch+json request, so high rate producers of
+ * small events do not pay the overhead of a request per event.
+ *
+ * A batch is sent once it holds batchSize events or lingerTime millis after its first event
+ * has been queued, whichever comes first. The exchanges of a batch complete together when
+ * the sink answers the request, each one getting its failure or its response code.
+ */
+final class KnativeBatchProcessor extends ServiceSupport implements AsyncProcessor {
+    private static final byte[] OPEN = {'['};
+    private static final byte[] SEPARATOR = {','};
+    private static final byte[] CLOSE = {']'};
+
+    private final CamelContext context;
+    private final String name;
+    private final int batchSize;
+    private final long lingerTime;
+    private final KnativeConnectionGate gate;
+    private final AsyncProcessor processor;
+    private final LongAdder batches;
+    private final LongAdder batched;
+
+    private List<Entry> pending;
+    private ScheduledFuture<?> timer;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param context the camel context
+     * @param name the name of the thread sending the batches that linger
+     * @param batchSize the max number of events in a batch
+     * @param lingerTime the max time in millis an event waits for the batch to fill
+     * @param gate bounds the number of batches sent concurrently, may be null
+     * @param processor sends the batches to the sink
+     */
+    KnativeBatchProcessor(CamelContext context, String name, int batchSize, long lingerTime, KnativeConnectionGate gate, AsyncProcessor processor) {
+        this.context = context;
+        this.name = name;
+        this.batchSize = batchSize;
+        this.lingerTime = lingerTime;
+        this.gate = gate;
+        this.processor = processor;
+        this.batches = new LongAdder();
+        this.batched = new LongAdder();
+        this.pending = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Processors.process(this, exchange);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        List<Entry> batch = null;
+
+        synchronized (this) {
+            if (scheduler == null) {
+                exchange.setException(new RejectedExecutionException("Batch processor " + name + " is not started"));
+                callback.done(true);
+                return true;
+            }
+
+            pending.add(new Entry(exchange, callback));
+
+            if (pending.size() >= batchSize) {
+                batch = take();
+            } else if (pending.size() == 1) {
+                final List<Entry> current = pending;
+                timer = scheduler.schedule(() -> linger(current), lingerTime, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (batch != null) {
+            send(batch);
+        }
+
+        return false;
+    }
+
+    // ************************
+    //
+    // Lifecycle
+    //
+    // ************************
+
+    @Override
+    protected void doStart() throws Exception {
+        Services.start(processor);
+
+        final ScheduledExecutorService executor = context.getExecutorServiceManager().newSingleThreadScheduledExecutor(this, name);
+
+        synchronized (this) {
+            scheduler = executor;
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        final ScheduledExecutorService executor;
+        final List<Entry> batch;
+
+        synchronized (this) {
+            executor = scheduler;
+            batch = take();
+            scheduler = null;
+        }
+
+        if (executor != null) {
+            context.getExecutorServiceManager().shutdownNow(executor);
+        }
+
+        // the graceful shutdown waits for the exchanges in flight, so the batches have
+        // normally been sent by now
+        for (Entry entry : batch) {
+            entry.exchange.setException(new RejectedExecutionException("Batch processor " + name + " has been stopped"));
+            entry.callback.done(false);
+        }
+
+        Services.stop(processor);
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    long getBatches() {
+        return batches.sum();
+    }
+
+    long getMeanBatchSize() {
+        final long count = batches.sum();
+        return count > 0 ? batched.sum() / count : 0;
+    }
+
+    synchronized int getPendingExchanges() {
+        return pending.size();
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    private List<Entry> take() {
+        final List<Entry> answer = pending;
+
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+
+        pending = new ArrayList<>(batchSize);
+
+        return answer;
+    }
+
+    private void linger(List<Entry> batch) {
+        synchronized (this) {
+            // the batch has been filled up and sent in the meantime
+            if (pending != batch) {
+                return;
+            }
+
+            timer = null;
+            pending = new ArrayList<>(batchSize);
+        }
+
+        send(batch);
+    }
+
+    private void send(List<Entry> batch) {
+        final Exchange exchange = Exchanges.newDefaultExchange(context);
+        final ByteBuf body;
+
+        try {
+            body = write(batch);
+        } catch (Exception e) {
+            complete(batch, e, null);
+            return;
+        }
+
+        exchange.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+        exchange.getIn().setBody(body);
+
+        batches.increment();
+        batched.add(batch.size());
+
+        final AsyncCallback callback = doneSync -> {
+            // the http binding sends a retained duplicate of the batch so its own
+            // reference, and thus those of the envelopes, are released here once
+            body.release();
+
+            final Message answer = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
+            complete(batch, exchange.getException(), answer.getHeader(Exchange.HTTP_RESPONSE_CODE));
+        };
+
+        if (gate != null) {
+            gate.process(exchange, callback, processor);
+        } else {
+            processor.process(exchange, callback);
+        }
+    }
+
+    /*
+     * The batch is a composite of the envelopes, which are not copied. Each one is retained
+     * as the exchange it belongs to releases its own reference once done.
+     */
+    private static ByteBuf write(List<Entry> batch) {
+        final ByteBuf[] components = new ByteBuf[batch.size() * 2 + 1];
+        int count = 0;
+
+        try {
+            for (Entry entry : batch) {
+                final Message message = entry.exchange.getIn();
+                final Object body = message.getBody();
+
+                components[count] = Unpooled.wrappedBuffer(count == 0 ? OPEN : SEPARATOR);
+                count++;
+                components[count] = body instanceof ByteBuf
+                    ? ((ByteBuf)body).retainedDuplicate()
+                    : Unpooled.wrappedBuffer(message.getMandatoryBody(byte[].class));
+                count++;
+            }
+
+            components[count] = Unpooled.wrappedBuffer(CLOSE);
+        } catch (Exception e) {
+            for (int i = 0; i < count; i++) {
+                components[i].release();
+            }
+
+            throw Exceptions.wrapRuntimeCamelException(e);
+        }
+
+        return Unpooled.wrappedBuffer(components.length, components);
+    }
+
+    private static void complete(List<Entry> batch, Exception cause, Object code) {
+        for (Entry entry : batch) {
+            final Exchange exchange = entry.exchange;
+
+            if (cause != null) {
+                exchange.setException(cause);
+            } else if (code != null) {
+                final Message message = exchange.getPattern().isOutCapable() ? exchange.getOut() : exchange.getIn();
+                message.setHeader(Exchange.HTTP_RESPONSE_CODE, code);
+            }
+
+            entry.callback.done(false);
+        }
+    }
+
+    private static final class Entry {
+        final Exchange exchange;
+        final AsyncCallback callback;
+
+        Entry(Exchange exchange, AsyncCallback callback) {
+            this.exchange = exchange;
+            this.callback = callback;
+        }
+    }
+}
@@ -16,19 +16,40 @@
  */
 package org.apache.camel.component.knative;
 
+import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.k.adapter.DefaultComponent;
 import org.apache.camel.k.adapter.Introspection;
+import org.apache.camel.k.adapter.Resources;
+import org.apache.camel.util.IOHelper;
 import org.apache.camel.util.StringHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+@ManagedResource(description = "Managed KnativeComponent")
 public class KnativeComponent extends DefaultComponent {
     public static final String CONFIGURATION_ENV_VARIABLE = "CAMEL_KNATIVE_CONFIGURATION";
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(KnativeComponent.class);
+
     private final KnativeConfiguration configuration;
     private String environmentPath;
+    private long environmentReloadInterval;
+
+    // the environment loaded from environmentPath or the env variable, shared
+    // by all the endpoints as it is immutable
+    private volatile KnativeEnvironment loadedEnvironment;
+    private volatile String loadedEnvironmentContent;
+    private volatile long environmentLoadTime = -1;
+    private volatile long environmentReloads;
+    private ScheduledExecutorService reloader;
 
     public KnativeComponent() {
         this(null);
@@ -55,6 +76,20 @@ public class KnativeComponent extends DefaultComponent {
      */
     public void setEnvironmentPath(String environmentPath) {
         this.environmentPath = environmentPath;
+        this.loadedEnvironment = null;
+    }
+
+    public long getEnvironmentReloadInterval() {
+        return environmentReloadInterval;
+    }
+
+    /**
+     * The interval in millis at which the environment loaded from environmentPath is checked
+     * for changes, 0 to disable. When it changes, the producers are moved to the new address
+     * of their sink without restarting the routes.
+     */
+    public void setEnvironmentReloadInterval(long environmentReloadInterval) {
+        this.environmentReloadInterval = environmentReloadInterval;
     }
 
     public KnativeConfiguration getConfiguration() {
@@ -80,6 +115,22 @@ public class KnativeComponent extends DefaultComponent {
         configuration.setJsonSerializationEnabled(jsonSerializationEnabled);
     }
 
+    public String getPayloadEncoding() {
+        return configuration.getPayloadEncoding();
+    }
+
+    public void setPayloadEncoding(String payloadEncoding) {
+        configuration.setPayloadEncoding(payloadEncoding);
+    }
+
+    public KnativePayloadCodec getPayloadCodec() {
+        return configuration.getPayloadCodec();
+    }
+
+    public void setPayloadCodec(KnativePayloadCodec payloadCodec) {
+        configuration.setPayloadCodec(payloadCodec);
+    }
+
     public String getCloudEventsSpecVersion() {
         return configuration.getCloudEventsSpecVersion();
     }
@@ -88,6 +139,114 @@ public class KnativeComponent extends DefaultComponent {
         configuration.setCloudEventsSpecVersion(cloudEventSpecVersion);
     }
 
+    // ************************
+    //
+    // Lifecycle
+    //
+    // ************************
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        if (environmentReloadInterval > 0) {
+            reloader = getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, "KnativeEnvironmentReload");
+            reloader.scheduleWithFixedDelay(() -> {
+                try {
+                    reloadEnvironment();
+                } catch (Exception e) {
+                    LOGGER.warn("Error reloading the knative environment from {}", environmentPath, e);
+                }
+            }, environmentReloadInterval, environmentReloadInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (reloader != null) {
+            getCamelContext().getExecutorServiceManager().shutdownNow(reloader);
+            reloader = null;
+        }
+
+        super.doStop();
+    }
+
+    /**
+     * Load the environment from environmentPath again and, if it has changed, bind the
+     * endpoints created from the previous one to the services of the new one.
+     *
+     * @return true if the environment has changed
+     */
+    boolean reloadEnvironment() throws Exception {
+        final KnativeEnvironment previous = loadedEnvironment;
+        final String path = environmentPath;
+
+        if (previous == null || path == null) {
+            return false;
+        }
+
+        final String content = readEnvironment(path);
+        if (content.equals(loadedEnvironmentContent)) {
+            return false;
+        }
+
+        final KnativeEnvironment next = KnativeEnvironment.mandatoryLoadFromSerializedString(getCamelContext(), content);
+
+        synchronized (this) {
+            // the path has been changed in the meantime
+            if (loadedEnvironment != previous) {
+                return false;
+            }
+
+            loadedEnvironment = next;
+            loadedEnvironmentContent = content;
+            environmentReloads++;
+        }
+
+        for (Endpoint endpoint : getCamelContext().getEndpoints()) {
+            if (endpoint instanceof KnativeEndpoint && ((KnativeEndpoint)endpoint).getComponent() == this) {
+                final KnativeEndpoint knative = (KnativeEndpoint)endpoint;
+
+                if (knative.reload(previous, next)) {
+                    LOGGER.info("Knative endpoint {} bound to {}", knative.getEndpointUri(), knative.getEndpoint().getEndpointUri());
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if one of the knative endpoints created by this component is bound to the given endpoint
+     */
+    boolean isBound(Endpoint endpoint) {
+        for (Endpoint candidate : getCamelContext().getEndpoints()) {
+            if (candidate instanceof KnativeEndpoint && ((KnativeEndpoint)candidate).getComponent() == this) {
+                if (((KnativeEndpoint)candidate).isBoundTo(endpoint)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    @ManagedAttribute(description = "The time in millis spent loading the knative environment, -1 if not loaded")
+    public long getEnvironmentLoadTime() {
+        return environmentLoadTime;
+    }
+
+    @ManagedAttribute(description = "The number of times the knative environment has been reloaded")
+    public long getEnvironmentReloads() {
+        return environmentReloads;
+    }
+
     // ************************
     //
     //
@@ -116,20 +275,47 @@ public class KnativeComponent extends DefaultComponent {
         KnativeConfiguration conf = configuration.copy();
 
         if (conf.getEnvironment() == null) {
-            String envConfig = System.getenv(CONFIGURATION_ENV_VARIABLE);
-            if (environmentPath != null) {
-                conf.setEnvironment(
-                    KnativeEnvironment.mandatoryLoadFromResource(getCamelContext(), this.environmentPath)
-                );
-            } else if (envConfig != null) {
-                conf.setEnvironment(
-                    KnativeEnvironment.mandatoryLoadFromSerializedString(getCamelContext(), envConfig)
-                );
-            } else {
-                throw new IllegalStateException("Cannot load Knative configuration from file or env variable");
-            }
+            conf.setEnvironment(loadEnvironment());
         }
 
         return conf;
     }
+
+    private KnativeEnvironment loadEnvironment() throws Exception {
+        KnativeEnvironment answer = loadedEnvironment;
+
+        if (answer == null) {
+            synchronized (this) {
+                answer = loadedEnvironment;
+
+                if (answer == null) {
+                    final long start = System.nanoTime();
+
+                    String envConfig = System.getenv(CONFIGURATION_ENV_VARIABLE);
+                    if (environmentPath != null) {
+                        // the content is kept to detect the changes
+                        final String content = readEnvironment(environmentPath);
+
+                        answer = KnativeEnvironment.mandatoryLoadFromSerializedString(getCamelContext(), content);
+                        loadedEnvironmentContent = content;
+                    } else if (envConfig != null) {
+                        answer = KnativeEnvironment.mandatoryLoadFromSerializedString(getCamelContext(), envConfig);
+                    } else {
+                        throw new IllegalStateException("Cannot load Knative configuration from file or env variable");
+                    }
+
+                    environmentLoadTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    loadedEnvironment = answer;
+                }
+            }
+        }
+
+        return answer;
+    }
+
+    private String readEnvironment(String path) throws Exception {
+        try (InputStream is = Resources.resolveResourceAsInputStream(getCamelContext(), path)) {
+            return IOHelper.loadText(is);
+        }
+    }
 }
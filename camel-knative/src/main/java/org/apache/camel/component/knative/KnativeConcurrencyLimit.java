@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+/**
+ * Computes the number of exchanges a knative consumer is allowed to process concurrently
+ * from the latency observed while processing the previous ones.
+ *
+ * A limit is owned by a single consumer and is always accessed under the lock of the
+ * processor enforcing it, thus implementations do not need to be thread safe.
+ */
+public interface KnativeConcurrencyLimit {
+    /**
+     * The number of exchanges that can be processed concurrently.
+     */
+    int getLimit();
+
+    /**
+     * Update the limit once an exchange has been processed.
+     *
+     * @param rtt the time in nanos the route took to process the exchange
+     * @param inflight the number of exchanges in flight when the exchange has been accepted,
+     *                 including the exchange itself
+     * @param dropped true if the exchange failed because a downstream sink is overloaded
+     */
+    void onSample(long rtt, int inflight, boolean dropped);
+
+    /**
+     * Creates a limit for each knative consumer.
+     */
+    @FunctionalInterface
+    interface Strategy {
+        KnativeConcurrencyLimit newLimit();
+    }
+}
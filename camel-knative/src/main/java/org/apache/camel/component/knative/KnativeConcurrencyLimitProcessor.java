@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.Processor;
+import org.apache.camel.k.adapter.Processors;
+import org.apache.camel.k.adapter.ServiceSupport;
+import org.apache.camel.k.adapter.Services;
+
+/**
+ * Sits in front of the pipeline of a knative consumer and bounds the number of exchanges it
+ * processes concurrently to the value computed by a {@link KnativeConcurrencyLimit}, which is
+ * fed with the time the pipeline took to process each exchange.
+ *
+ * Exchanges exceeding the limit are not processed and are answered with a 503 and a
+ * Retry-After header so the caller can back off or retry on another replica.
+ */
+final class KnativeConcurrencyLimitProcessor extends ServiceSupport implements AsyncProcessor {
+    private final KnativeConcurrencyLimit limit;
+    private final AsyncProcessor processor;
+    private final LongSupplier clock;
+
+    private int inflight;
+    private long rejected;
+
+    KnativeConcurrencyLimitProcessor(KnativeConcurrencyLimit limit, Processor processor) {
+        this(limit, processor, System::nanoTime);
+    }
+
+    KnativeConcurrencyLimitProcessor(KnativeConcurrencyLimit limit, Processor processor, LongSupplier clock) {
+        this.limit = limit;
+        this.processor = Processors.convertToAsync(processor);
+        this.clock = clock;
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Processors.process(this, exchange);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        final int accepted;
+
+        synchronized (this) {
+            if (inflight >= limit.getLimit()) {
+                rejected++;
+                accepted = -1;
+            } else {
+                accepted = ++inflight;
+            }
+        }
+
+        if (accepted < 0) {
+            KnativeSupport.serviceUnavailable(exchange);
+            callback.done(true);
+            return true;
+        }
+
+        final long start = clock.getAsLong();
+
+        return processor.process(exchange, doneSync -> {
+            final long rtt = clock.getAsLong() - start;
+
+            synchronized (this) {
+                inflight--;
+                limit.onSample(rtt, accepted, isDropped(exchange));
+            }
+
+            callback.done(doneSync);
+        });
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        Services.start(processor);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        Services.stop(processor);
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    synchronized int getLimit() {
+        return limit.getLimit();
+    }
+
+    synchronized int getInflight() {
+        return inflight;
+    }
+
+    synchronized long getRejected() {
+        return rejected;
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    /*
+     * Only the failures denoting an overloaded downstream sink, like those raised when the
+     * producer connection pool is exhausted, count as dropped exchanges as other failures
+     * are not related to the load.
+     */
+    private static boolean isDropped(Exchange exchange) {
+        final Exception cause = exchange.getException();
+
+        return cause instanceof RejectedExecutionException
+            || cause instanceof ExchangeTimedOutException;
+    }
+}
@@ -26,9 +26,90 @@ public class KnativeConfiguration implements Cloneable {
     @UriParam(defaultValue = "false")
     private boolean jsonSerializationEnabled;
 
-    @UriParam(defaultValue = "0.2", enums = "0.1,0.2")
+    @UriParam(defaultValue = "0.2", enums = "0.1,0.2,1.0")
     private String cloudEventsSpecVersion = "0.2";
 
+    @UriParam(label = "producer", defaultValue = "binary", enums = "binary,structured")
+    private String cloudEventsContentMode = "binary";
+
+    @UriParam(enums = "json,cbor,smile")
+    private String payloadEncoding;
+
+    @UriParam
+    private KnativePayloadCodec payloadCodec;
+
+    @UriParam(label = "consumer")
+    private String dataType;
+
+    @UriParam(label = "producer", defaultValue = "-1")
+    private int poolMaxConnections = -1;
+
+    @UriParam(label = "producer", defaultValue = "300000")
+    private long poolIdleTimeout = 300000;
+
+    @UriParam(label = "producer", defaultValue = "-1")
+    private int poolMaxPendingAcquires = -1;
+
+    @UriParam(label = "producer", defaultValue = "30000")
+    private long poolAcquireTimeout = 30000;
+
+    @UriParam(label = "producer", defaultValue = "roundRobin", enums = "roundRobin,leastRequests,latency")
+    private String loadBalancer = "roundRobin";
+
+    @UriParam(label = "producer", defaultValue = "5")
+    private int outlierConsecutiveFailures = 5;
+
+    @UriParam(label = "producer", defaultValue = "30000")
+    private long outlierEjectionTime = 30000;
+
+    @UriParam(label = "producer", defaultValue = "0")
+    private long hedgeDelay;
+
+    @UriParam(label = "producer", defaultValue = "0")
+    private double hedgeDelayPercentile;
+
+    @UriParam(label = "producer", defaultValue = "0")
+    private int batchSize;
+
+    @UriParam(label = "producer", defaultValue = "10")
+    private long batchLingerTime = 10;
+
+    @UriParam(label = "consumer", defaultValue = "-1")
+    private int maxInflightExchanges = -1;
+
+    @UriParam(label = "consumer", enums = "none,aimd,gradient")
+    private String concurrencyLimit;
+
+    @UriParam(label = "consumer", defaultValue = "1000")
+    private long concurrencyLimitLatencyThreshold = 1000;
+
+    @UriParam(label = "consumer")
+    private KnativeConcurrencyLimit.Strategy concurrencyLimitStrategy;
+
+    @UriParam(label = "consumer", defaultValue = "0")
+    private int dispatchPoolSize;
+
+    @UriParam(label = "consumer", defaultValue = "1000")
+    private int dispatchQueueSize = 1000;
+
+    @UriParam(label = "consumer", defaultValue = "reject", enums = "reject,callerRuns")
+    private String dispatchSaturationPolicy = "reject";
+
+    @UriParam(label = "consumer", defaultValue = "0")
+    private int deduplicationCacheSize;
+
+    @UriParam(label = "consumer", defaultValue = "600000")
+    private long deduplicationTtl = 600000;
+
+    @UriParam(label = "consumer", defaultValue = "1")
+    private int batchParallelism = 1;
+
+    @UriParam(label = "consumer", defaultValue = "0")
+    private int aggregationSize;
+
+    @UriParam(label = "consumer", defaultValue = "100")
+    private long aggregationTimeout = 100;
+
     public KnativeConfiguration() {
     }
 
@@ -65,6 +146,340 @@ public class KnativeConfiguration implements Cloneable {
         this.cloudEventsSpecVersion = cloudEventsSpecVersion;
     }
 
+    public String getCloudEventsContentMode() {
+        return cloudEventsContentMode;
+    }
+
+    /**
+     * How producers send events: binary maps the attributes to ce-* headers and sends
+     * the data as the request content, structured sends the whole event as an
+     * application/cloudevents+json document.
+     */
+    public void setCloudEventsContentMode(String cloudEventsContentMode) {
+        this.cloudEventsContentMode = cloudEventsContentMode;
+    }
+
+    public String getPayloadEncoding() {
+        return payloadEncoding;
+    }
+
+    /**
+     * The codec used to encode the body of the messages sent by producers and to decode the
+     * data of the events received by consumers: json, cbor or smile. The binary formats
+     * require the matching jackson dataformat on the classpath. Unlike jsonSerializationEnabled,
+     * which only affects producers, consumers decode the events whose content type is the one
+     * of the codec.
+     */
+    public void setPayloadEncoding(String payloadEncoding) {
+        this.payloadEncoding = payloadEncoding;
+    }
+
+    public KnativePayloadCodec getPayloadCodec() {
+        return payloadCodec;
+    }
+
+    /**
+     * A custom codec to encode and decode the event data, takes precedence over payloadEncoding.
+     */
+    public void setPayloadCodec(KnativePayloadCodec payloadCodec) {
+        this.payloadCodec = payloadCodec;
+    }
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    /**
+     * The fully qualified name of the class consumers bind the data of the events to, using
+     * the payload codec or JSON if none is configured. Events whose content type is not the
+     * one of the codec are left untouched.
+     */
+    public void setDataType(String dataType) {
+        this.dataType = dataType;
+    }
+
+    public int getPoolMaxConnections() {
+        return poolMaxConnections;
+    }
+
+    /**
+     * The maximum number of connections a producer can open to a sink, -1 for no limit.
+     * When the sink is served by more than an instance, the limit applies to all of
+     * them together.
+     */
+    public void setPoolMaxConnections(int poolMaxConnections) {
+        this.poolMaxConnections = poolMaxConnections;
+    }
+
+    public long getPoolIdleTimeout() {
+        return poolIdleTimeout;
+    }
+
+    /**
+     * The time in millis after which an idle connection to a sink is closed.
+     */
+    public void setPoolIdleTimeout(long poolIdleTimeout) {
+        this.poolIdleTimeout = poolIdleTimeout;
+    }
+
+    public int getPoolMaxPendingAcquires() {
+        return poolMaxPendingAcquires;
+    }
+
+    /**
+     * The maximum number of exchanges waiting for a connection to a sink once all the
+     * connections are in use, -1 for no limit.
+     */
+    public void setPoolMaxPendingAcquires(int poolMaxPendingAcquires) {
+        this.poolMaxPendingAcquires = poolMaxPendingAcquires;
+    }
+
+    public long getPoolAcquireTimeout() {
+        return poolAcquireTimeout;
+    }
+
+    /**
+     * The time in millis an exchange waits for a connection to a sink before failing,
+     * 0 or less to wait indefinitely.
+     */
+    public void setPoolAcquireTimeout(long poolAcquireTimeout) {
+        this.poolAcquireTimeout = poolAcquireTimeout;
+    }
+
+    public String getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    /**
+     * How producers select the instance of a sink an exchange is sent to, when the environment
+     * defines more than a service with the same type and name or lists more than an address in
+     * the service.hosts metadata: roundRobin, leastRequests or latency.
+     */
+    public void setLoadBalancer(String loadBalancer) {
+        this.loadBalancer = loadBalancer;
+    }
+
+    public int getOutlierConsecutiveFailures() {
+        return outlierConsecutiveFailures;
+    }
+
+    /**
+     * The number of consecutive 5xx answers or failed requests after which producers stop
+     * sending exchanges to an instance of a sink for outlierEjectionTime, 0 to never eject
+     * instances.
+     */
+    public void setOutlierConsecutiveFailures(int outlierConsecutiveFailures) {
+        this.outlierConsecutiveFailures = outlierConsecutiveFailures;
+    }
+
+    public long getOutlierEjectionTime() {
+        return outlierEjectionTime;
+    }
+
+    /**
+     * The time in millis an instance of a sink is ejected for.
+     */
+    public void setOutlierEjectionTime(long outlierEjectionTime) {
+        this.outlierEjectionTime = outlierEjectionTime;
+    }
+
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * The time in millis after which producers send an exchange that did not get an answer
+     * yet again, to another instance of the sink if there is one, and keep the first answer,
+     * 0 to disable hedging. Both attempts carry the same event id so sinks can detect the
+     * duplicate.
+     */
+    public void setHedgeDelay(long hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    public double getHedgeDelayPercentile() {
+        return hedgeDelayPercentile;
+    }
+
+    /**
+     * The percentile of the latency observed by producers for a sink, like 95, to use as
+     * hedge delay when it is greater than hedgeDelay, 0 to always use hedgeDelay.
+     */
+    public void setHedgeDelayPercentile(double hedgeDelayPercentile) {
+        this.hedgeDelayPercentile = hedgeDelayPercentile;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * The max number of events producers group into a single application/cloudevents-batch+json
+     * request, 0 or 1 to send each event on its own. Batched events are always written in
+     * structured mode.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchLingerTime() {
+        return batchLingerTime;
+    }
+
+    /**
+     * The max time in millis an event waits for its batch to be filled up before the batch is
+     * sent anyway.
+     */
+    public void setBatchLingerTime(long batchLingerTime) {
+        this.batchLingerTime = batchLingerTime;
+    }
+
+    public int getMaxInflightExchanges() {
+        return maxInflightExchanges;
+    }
+
+    /**
+     * The maximum number of exchanges a consumer processes concurrently, requests received
+     * when the limit is reached are answered with a 503 and a Retry-After header, -1 for
+     * no limit.
+     */
+    public void setMaxInflightExchanges(int maxInflightExchanges) {
+        this.maxInflightExchanges = maxInflightExchanges;
+    }
+
+    public String getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * The algorithm used to adapt the number of exchanges a consumer processes concurrently
+     * to the latency of the route: aimd, gradient or none. Requests exceeding the limit are
+     * answered with a 503 and a Retry-After header.
+     */
+    public void setConcurrencyLimit(String concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public long getConcurrencyLimitLatencyThreshold() {
+        return concurrencyLimitLatencyThreshold;
+    }
+
+    /**
+     * The time in millis above which the aimd concurrency limit considers the route too slow
+     * and decreases the limit.
+     */
+    public void setConcurrencyLimitLatencyThreshold(long concurrencyLimitLatencyThreshold) {
+        this.concurrencyLimitLatencyThreshold = concurrencyLimitLatencyThreshold;
+    }
+
+    public KnativeConcurrencyLimit.Strategy getConcurrencyLimitStrategy() {
+        return concurrencyLimitStrategy;
+    }
+
+    /**
+     * A custom strategy to create the concurrency limit of each consumer, takes precedence
+     * over concurrencyLimit.
+     */
+    public void setConcurrencyLimitStrategy(KnativeConcurrencyLimit.Strategy concurrencyLimitStrategy) {
+        this.concurrencyLimitStrategy = concurrencyLimitStrategy;
+    }
+
+    public int getDispatchPoolSize() {
+        return dispatchPoolSize;
+    }
+
+    /**
+     * The number of worker threads dedicated to process the exchanges received by a consumer,
+     * 0 to process them on the threads netty uses to handle requests.
+     */
+    public void setDispatchPoolSize(int dispatchPoolSize) {
+        this.dispatchPoolSize = dispatchPoolSize;
+    }
+
+    public int getDispatchQueueSize() {
+        return dispatchQueueSize;
+    }
+
+    /**
+     * The maximum number of exchanges waiting for a worker thread when dispatchPoolSize is set.
+     */
+    public void setDispatchQueueSize(int dispatchQueueSize) {
+        this.dispatchQueueSize = dispatchQueueSize;
+    }
+
+    public String getDispatchSaturationPolicy() {
+        return dispatchSaturationPolicy;
+    }
+
+    /**
+     * What to do with the exchanges received once the dispatch queue is full: reject answers
+     * them with a 503 and a Retry-After header, callerRuns processes them on the thread that
+     * received them.
+     */
+    public void setDispatchSaturationPolicy(String dispatchSaturationPolicy) {
+        this.dispatchSaturationPolicy = dispatchSaturationPolicy;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    /**
+     * The max number of events of an application/cloudevents-batch+json request a consumer
+     * processes at a time, 1 to process them one after the other in the batch order.
+     */
+    public void setBatchParallelism(int batchParallelism) {
+        this.batchParallelism = batchParallelism;
+    }
+
+    public int getAggregationSize() {
+        return aggregationSize;
+    }
+
+    /**
+     * The max number of events a consumer aggregates into a single exchange whose body is the
+     * list of their bodies, 0 or 1 to route each event on its own. The events are answered once
+     * the aggregate has been routed.
+     */
+    public void setAggregationSize(int aggregationSize) {
+        this.aggregationSize = aggregationSize;
+    }
+
+    public long getAggregationTimeout() {
+        return aggregationTimeout;
+    }
+
+    /**
+     * The max time in millis an event waits for its aggregate to fill up before the aggregate
+     * is routed anyway.
+     */
+    public void setAggregationTimeout(long aggregationTimeout) {
+        this.aggregationTimeout = aggregationTimeout;
+    }
+
+    public int getDeduplicationCacheSize() {
+        return deduplicationCacheSize;
+    }
+
+    /**
+     * The number of event ids a consumer remembers to drop the events delivered more than once,
+     * 0 to process all the events.
+     */
+    public void setDeduplicationCacheSize(int deduplicationCacheSize) {
+        this.deduplicationCacheSize = deduplicationCacheSize;
+    }
+
+    public long getDeduplicationTtl() {
+        return deduplicationTtl;
+    }
+
+    /**
+     * The time in millis a consumer remembers the id of an event it processed.
+     */
+    public void setDeduplicationTtl(long deduplicationTtl) {
+        this.deduplicationTtl = deduplicationTtl;
+    }
+
     // ************************
     //
     // Cloneable
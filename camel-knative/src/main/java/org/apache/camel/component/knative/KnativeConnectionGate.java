@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
+
+/**
+ * Bounds the number of exchanges a producer sends concurrently to a sink, and thus the
+ * number of connections the underlying netty producer pool opens, making exchanges
+ * exceeding the limit wait for a connection to be released instead of failing.
+ *
+ * Waiting exchanges are served in arrival order and fail if they can't be enqueued
+ * because there are already maxPendingAcquires exchanges waiting or if they do not get
+ * a connection within acquireTimeout.
+ *
+ * There is one gate per producer, so when the sink is served by more than an instance
+ * the limit applies to the exchanges sent to all of them together.
+ */
+final class KnativeConnectionGate {
+    private final String sink;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+    private final long acquireTimeout;
+    private final Deque<Waiter> waiters;
+
+    private ScheduledExecutorService scheduler;
+    private int active;
+    private long acquired;
+    private long timeouts;
+    private long rejections;
+    private long totalWaitTime;
+    private long maxWaitTime;
+
+    KnativeConnectionGate(String sink, int maxConnections, int maxPendingAcquires, long acquireTimeout) {
+        this.sink = sink;
+        this.maxConnections = maxConnections;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.acquireTimeout = acquireTimeout;
+        this.waiters = new ArrayDeque<>();
+    }
+
+    /**
+     * Process the exchange with the given processor as soon as a connection is available.
+     *
+     * @return true if the exchange has been processed synchronously, as per {@link AsyncProcessor#process(Exchange, AsyncCallback)}
+     */
+    boolean process(Exchange exchange, AsyncCallback callback, AsyncProcessor processor) {
+        synchronized (this) {
+            if (active >= maxConnections) {
+                if (maxPendingAcquires >= 0 && waiters.size() >= maxPendingAcquires) {
+                    rejections++;
+
+                    exchange.setException(new RejectedExecutionException(
+                        "Too many exchanges waiting for a connection to " + sink + " (max: " + maxPendingAcquires + ")"));
+
+                    callback.done(true);
+                    return true;
+                }
+
+                final Waiter waiter = new Waiter(exchange, callback, processor);
+                waiters.addLast(waiter);
+
+                if (acquireTimeout > 0 && scheduler != null) {
+                    waiter.timeout = scheduler.schedule(() -> expire(waiter), acquireTimeout, TimeUnit.MILLISECONDS);
+                }
+
+                return false;
+            }
+
+            active++;
+            acquired++;
+        }
+
+        return dispatch(new Waiter(exchange, callback, processor), false);
+    }
+
+    synchronized void start(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    void stop() {
+        final List<Waiter> pending;
+
+        synchronized (this) {
+            pending = new ArrayList<>(waiters);
+            waiters.clear();
+            scheduler = null;
+        }
+
+        for (Waiter waiter : pending) {
+            waiter.cancelTimeout();
+            waiter.exchange.setException(new RejectedExecutionException("Producer for " + sink + " has been stopped"));
+            waiter.callback.done(false);
+        }
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    int getMaxConnections() {
+        return maxConnections;
+    }
+
+    synchronized int getActiveConnections() {
+        return active;
+    }
+
+    synchronized int getPendingAcquires() {
+        return waiters.size();
+    }
+
+    synchronized long getAcquired() {
+        return acquired;
+    }
+
+    synchronized long getAcquireTimeouts() {
+        return timeouts;
+    }
+
+    synchronized long getAcquireRejections() {
+        return rejections;
+    }
+
+    synchronized long getMeanAcquireWaitTime() {
+        return acquired > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitTime / acquired) : 0;
+    }
+
+    synchronized long getMaxAcquireWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitTime);
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    /*
+     * Process the exchange of the given waiter, then hand the connection over to the
+     * next waiter once it is done. Waiters whose exchanges complete synchronously are
+     * processed by looping rather than recursing, so a long queue does not overflow the
+     * stack; a new loop is only started by the callback of an asynchronous completion.
+     */
+    private boolean dispatch(Waiter waiter, boolean async) {
+        final boolean answer = process(waiter, async);
+
+        if (answer) {
+            Waiter next = waiter.next;
+            while (next != null && process(next, true)) {
+                next = next.next;
+            }
+        }
+
+        return answer;
+    }
+
+    /*
+     * Process the exchange of the given waiter, the connection is handed over to the next
+     * waiter by the callback when the exchange completes asynchronously, otherwise it is
+     * recorded for the caller to process.
+     */
+    private boolean process(Waiter waiter, boolean async) {
+        return waiter.processor.process(waiter.exchange, doneSync -> {
+            final Waiter next = release();
+
+            try {
+                waiter.callback.done(!async && doneSync);
+            } finally {
+                if (next != null) {
+                    next.cancelTimeout();
+
+                    if (doneSync) {
+                        waiter.next = next;
+                    } else {
+                        dispatch(next, true);
+                    }
+                }
+            }
+        });
+    }
+
+    /*
+     * Release a connection, handing it over to the first waiting exchange if any.
+     */
+    private synchronized Waiter release() {
+        final Waiter next = waiters.pollFirst();
+
+        if (next != null) {
+            final long waitTime = System.nanoTime() - next.since;
+
+            acquired++;
+            totalWaitTime += waitTime;
+            maxWaitTime = Math.max(maxWaitTime, waitTime);
+        } else {
+            active--;
+        }
+
+        return next;
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!waiters.remove(waiter)) {
+                // the exchange got a connection in the meantime
+                return;
+            }
+
+            timeouts++;
+        }
+
+        waiter.exchange.setException(new ExchangeTimedOutException(
+            waiter.exchange, acquireTimeout, "Timeout waiting for a connection to " + sink));
+
+        waiter.callback.done(false);
+    }
+
+    private static final class Waiter {
+        final Exchange exchange;
+        final AsyncCallback callback;
+        final AsyncProcessor processor;
+        final long since;
+        ScheduledFuture<?> timeout;
+        Waiter next;
+
+        Waiter(Exchange exchange, AsyncCallback callback, AsyncProcessor processor) {
+            this.exchange = exchange;
+            this.callback = callback;
+            this.processor = processor;
+            this.since = System.nanoTime();
+        }
+
+        void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+    }
+}
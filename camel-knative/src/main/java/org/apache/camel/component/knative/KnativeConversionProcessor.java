@@ -2,26 +2,38 @@ package org.apache.camel.component.knative;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.apache.camel.component.knative.ce.CloudEventData;
 
 /**
  * Converts objects prior to serializing them to external endpoints or channels
  */
 public class KnativeConversionProcessor implements Processor {
 
-    private boolean enabled;
+    private final KnativePayloadCodec codec;
 
     public KnativeConversionProcessor(boolean enabled) {
-        this.enabled = enabled;
+        this(enabled ? KnativeJacksonCodec.JSON : null);
+    }
+
+    public KnativeConversionProcessor(KnativePayloadCodec codec) {
+        this.codec = codec;
     }
 
     @Override
     public void process(Exchange exchange) throws Exception {
-        if (enabled) {
+        if (codec != null) {
             Object body = exchange.getIn().getBody();
             if (body != null) {
-                byte[] newBody = Knative.MAPPER.writeValueAsBytes(body);
+                final String contentType = codec.getContentType();
+
+                // the data of a structured event is already JSON, no need to
+                // materialize it to serialize it back
+                byte[] newBody = body instanceof CloudEventData && KnativeJacksonCodec.MIME_JSON.equals(contentType)
+                    ? ((CloudEventData)body).getBytes()
+                    : codec.encode(body instanceof CloudEventData ? ((CloudEventData)body).getValue() : body);
                 exchange.getIn().setBody(newBody);
-                exchange.getIn().setHeader("CE-ContentType", "application/json");
+                exchange.getIn().setHeader("CE-ContentType", contentType);
+                exchange.getIn().setHeader(Exchange.CONTENT_TYPE, contentType);
             }
         }
     }
@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.component.knative.ce.CloudEventData;
+
+/**
+ * Decodes the data of the events received by a consumer when their content type is the
+ * one of the configured codec, the counterpart of {@link KnativeConversionProcessor}.
+ *
+ * It runs after the cloud events processor so the data of structured events, eventually
+ * base64 encoded, has already been extracted from the envelope.
+ */
+final class KnativeDecodingProcessor implements Processor {
+    private final KnativePayloadCodec codec;
+    private final Class<?> type;
+
+    KnativeDecodingProcessor(KnativePayloadCodec codec, Class<?> type) {
+        this.codec = codec;
+        this.type = type;
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        final Message message = exchange.getIn();
+        final Object body = message.getBody();
+
+        if (body == null) {
+            return;
+        }
+
+        // the data of a structured event is JSON whatever the codec, it is bound
+        // straight from the slice of the request it has been read from
+        if (body instanceof CloudEventData && type != Object.class) {
+            message.setBody(((CloudEventData)body).readValue(KnativeJacksonCodec.JSON.reader(type)));
+        } else if (KnativeSupport.hasContentType(exchange, codec.getContentType())) {
+            message.setBody(codec.decode(message.getMandatoryBody(byte[].class), type));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.function.LongSupplier;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.k.adapter.Processors;
+import org.apache.camel.k.adapter.ServiceSupport;
+import org.apache.camel.k.adapter.Services;
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * Drops the events a consumer has already processed, as brokers deliver events at least
+ * once and redeliver them when they do not get an answer in time.
+ *
+ * Events are identified by their source and id, as required by the cloud events spec, so
+ * the processor runs after the cloud events processor has bound the attributes of
+ * structured events to headers. Duplicates are acknowledged without invoking the route,
+ * while the events received when the first copy is still in flight are answered with a
+ * 503 and a Retry-After header so they are redelivered if the first copy fails. Failed
+ * events, including those the route answers with a 5xx, are forgotten so that their
+ * redelivery is processed.
+ */
+final class KnativeDeduplicationProcessor extends ServiceSupport implements AsyncProcessor {
+    private final KnativeDeduplicationTable table;
+    private final AsyncProcessor processor;
+    private final LongSupplier clock;
+
+    private long duplicates;
+
+    KnativeDeduplicationProcessor(int capacity, long ttl, Processor processor) {
+        this(capacity, ttl, processor, System::currentTimeMillis);
+    }
+
+    KnativeDeduplicationProcessor(int capacity, long ttl, Processor processor, LongSupplier clock) {
+        this.table = new KnativeDeduplicationTable(capacity, ttl);
+        this.processor = Processors.convertToAsync(processor);
+        this.clock = clock;
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Processors.process(this, exchange);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        final Message message = exchange.getIn();
+
+        // ce-id since 0.2, CE-EventID in 0.1, headers are case insensitive
+        String id = message.getHeader("ce-id", String.class);
+        if (ObjectHelper.isEmpty(id)) {
+            id = message.getHeader("ce-eventid", String.class);
+        }
+        if (ObjectHelper.isEmpty(id)) {
+            return processor.process(exchange, callback);
+        }
+
+        final long key = KnativeDeduplicationTable.key(message.getHeader("ce-source", String.class), id);
+        final KnativeDeduplicationTable.State state;
+
+        synchronized (this) {
+            state = table.acquire(key, clock.getAsLong());
+            if (state == KnativeDeduplicationTable.State.DUPLICATE) {
+                duplicates++;
+            }
+        }
+
+        switch (state) {
+        case DUPLICATE:
+            exchange.getOut().setBody(null);
+            exchange.getOut().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+            callback.done(true);
+            return true;
+        case INFLIGHT:
+            KnativeSupport.serviceUnavailable(exchange);
+            callback.done(true);
+            return true;
+        default:
+            break;
+        }
+
+        return processor.process(exchange, doneSync -> {
+            synchronized (this) {
+                if (isFailed(exchange)) {
+                    table.release(key);
+                } else {
+                    table.complete(key, clock.getAsLong());
+                }
+            }
+
+            callback.done(doneSync);
+        });
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        Services.start(processor);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        Services.stop(processor);
+
+        synchronized (this) {
+            table.clear();
+        }
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    int getCapacity() {
+        return table.capacity();
+    }
+
+    synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    private static boolean isFailed(Exchange exchange) {
+        if (exchange.isFailed()) {
+            return true;
+        }
+
+        final Integer code = exchange.hasOut() ? exchange.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class) : null;
+        return code != null && code >= 500;
+    }
+}
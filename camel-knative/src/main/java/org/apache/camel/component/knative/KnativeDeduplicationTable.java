@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.Arrays;
+
+/**
+ * A bounded set of the event keys recently seen by a consumer, each remembered until its
+ * time to live expires.
+ *
+ * The keys are 64 bit hashes stored with their expiration in two primitive arrays addressed
+ * by open addressing, so millions of entries cost a couple of arrays and no object at all.
+ * A key is looked up in a window of {@link #PROBES} slots starting at its hash, when the
+ * window is full the entry closest to its expiration is evicted.
+ *
+ * The table is not thread safe.
+ */
+final class KnativeDeduplicationTable {
+    static final int PROBES = 8;
+
+    enum State {
+        /** The key was unknown and is now in flight. */
+        ACQUIRED,
+        /** The key is in flight. */
+        INFLIGHT,
+        /** The key has been completed and is not yet expired. */
+        DUPLICATE
+    }
+
+    private static final long EMPTY = 0;
+    private static final long IN_FLIGHT = Long.MAX_VALUE;
+
+    private final long[] keys;
+    private final long[] expirations;
+    private final int mask;
+    private final long ttl;
+
+    /**
+     * @param capacity the number of keys the table can hold, rounded up to a power of 2
+     * @param ttl the time keys are remembered once completed, in the unit of the clock
+     *            given to the other methods
+     */
+    KnativeDeduplicationTable(int capacity, long ttl) {
+        int size = PROBES;
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        this.keys = new long[size];
+        this.expirations = new long[size];
+        this.mask = size - 1;
+        this.ttl = ttl;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Mark a key as in flight unless it is already known.
+     */
+    State acquire(long key, long now) {
+        int candidate = -1;
+
+        for (int i = 0; i < PROBES; i++) {
+            final int index = (index(key) + i) & mask;
+
+            if (keys[index] == key) {
+                if (expirations[index] == IN_FLIGHT) {
+                    return State.INFLIGHT;
+                }
+                if (expirations[index] > now) {
+                    return State.DUPLICATE;
+                }
+
+                candidate = index;
+                break;
+            }
+
+            // prefer a free or expired slot, then the completed entry expiring first,
+            // the entries in flight are never evicted
+            if (keys[index] == EMPTY || expirations[index] <= now) {
+                if (candidate == -1 || keys[candidate] != EMPTY && expirations[candidate] > now) {
+                    candidate = index;
+                }
+            } else if (expirations[index] != IN_FLIGHT) {
+                if (candidate == -1 || expirations[index] < expirations[candidate]) {
+                    candidate = index;
+                }
+            }
+        }
+
+        if (candidate != -1) {
+            keys[candidate] = key;
+            expirations[candidate] = IN_FLIGHT;
+        }
+
+        return State.ACQUIRED;
+    }
+
+    /**
+     * Remember a key in flight until its time to live expires.
+     */
+    void complete(long key, long now) {
+        final int index = find(key);
+        if (index != -1) {
+            expirations[index] = now + ttl;
+        }
+    }
+
+    /**
+     * Forget a key, so the next event with the same key is processed again.
+     */
+    void release(long key) {
+        final int index = find(key);
+        if (index != -1) {
+            keys[index] = EMPTY;
+            expirations[index] = 0;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(expirations, 0);
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    /**
+     * Compute the key of an event from its source and id, 0 is reserved to mark the free slots.
+     */
+    static long key(String source, String id) {
+        long hash = 0xcbf29ce484222325L;
+
+        if (source != null) {
+            for (int i = 0; i < source.length(); i++) {
+                hash = (hash ^ source.charAt(i)) * 0x100000001b3L;
+            }
+        }
+
+        // a separator so that (ab, c) and (a, bc) do not collide
+        hash = (hash ^ 0xffff) * 0x100000001b3L;
+
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+        }
+
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    private int find(long key) {
+        for (int i = 0; i < PROBES; i++) {
+            final int index = (index(key) + i) & mask;
+            if (keys[index] == key) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    private int index(long key) {
+        // FNV leaves the low bits poorly mixed
+        final long h = key ^ (key >>> 32);
+        return (int)(h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.k.adapter.Processors;
+import org.apache.camel.k.adapter.ServiceSupport;
+import org.apache.camel.k.adapter.Services;
+import org.apache.camel.spi.ThreadPoolProfile;
+
+/**
+ * Hands the exchanges received by a knative consumer over to a pool of worker threads
+ * dedicated to the consumer, so the threads netty uses to decode requests only enqueue
+ * them and a slow route can't stall the other consumers bound to the same port.
+ *
+ * At most queueSize exchanges wait for a worker, the exchanges received once the queue is
+ * full are either answered with a 503 and a Retry-After header or processed by the thread
+ * that received them, according to the saturation policy.
+ */
+final class KnativeDispatchProcessor extends ServiceSupport implements AsyncProcessor {
+    enum SaturationPolicy {
+        reject,
+        callerRuns
+    }
+
+    private final CamelContext context;
+    private final String name;
+    private final int poolSize;
+    private final int queueSize;
+    private final SaturationPolicy saturationPolicy;
+    private final AsyncProcessor processor;
+    private final AtomicInteger queued;
+    private final LongAdder dispatched;
+    private final LongAdder rejected;
+    private final LongAdder totalWaitTime;
+    private final LongAccumulator maxWaitTime;
+
+    private volatile ExecutorService executor;
+
+    KnativeDispatchProcessor(CamelContext context, String name, int poolSize, int queueSize, SaturationPolicy saturationPolicy, Processor processor) {
+        this.context = context;
+        this.name = name;
+        this.poolSize = poolSize;
+        this.queueSize = queueSize;
+        this.saturationPolicy = saturationPolicy;
+        this.processor = Processors.convertToAsync(processor);
+        this.queued = new AtomicInteger();
+        this.dispatched = new LongAdder();
+        this.rejected = new LongAdder();
+        this.totalWaitTime = new LongAdder();
+        this.maxWaitTime = new LongAccumulator(Math::max, 0);
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Processors.process(this, exchange);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        final boolean enqueued;
+
+        try {
+            enqueued = execute(() -> processor.process(exchange, doneSync -> callback.done(false)));
+        } catch (RejectedExecutionException e) {
+            // the pool is being shut down
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        if (enqueued) {
+            return false;
+        }
+
+        if (saturationPolicy == SaturationPolicy.callerRuns) {
+            return processor.process(exchange, callback);
+        }
+
+        KnativeSupport.serviceUnavailable(exchange);
+        callback.done(true);
+        return true;
+    }
+
+    /**
+     * Run the given task on a worker, the task waits in the dispatch queue like exchanges do.
+     *
+     * @return false if the queue is full, then the saturation policy applies
+     * @throws RejectedExecutionException if the pool is not started or being shut down
+     */
+    boolean execute(Runnable task) {
+        if (!tryEnqueue()) {
+            rejected.increment();
+            return false;
+        }
+
+        final long since = System.nanoTime();
+
+        try {
+            final ExecutorService pool = executor;
+            if (pool == null) {
+                throw new RejectedExecutionException("Dispatch processor " + name + " is not started");
+            }
+
+            pool.execute(() -> {
+                final long waitTime = System.nanoTime() - since;
+
+                queued.decrementAndGet();
+                dispatched.increment();
+                totalWaitTime.add(waitTime);
+                maxWaitTime.accumulate(waitTime);
+
+                task.run();
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        Services.start(processor);
+
+        // the pool queue is as large as the dispatch queue so the saturation policy of
+        // the pool never kicks in, saturation is handled by process()
+        final ThreadPoolProfile profile = new ThreadPoolProfile(name);
+        profile.setPoolSize(poolSize);
+        profile.setMaxPoolSize(poolSize);
+        profile.setKeepAliveTime(0L);
+        profile.setMaxQueueSize(queueSize);
+
+        executor = context.getExecutorServiceManager().newThreadPool(this, name, profile);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (executor != null) {
+            context.getExecutorServiceManager().shutdownGraceful(executor);
+            executor = null;
+        }
+
+        Services.stop(processor);
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    SaturationPolicy getSaturationPolicy() {
+        return saturationPolicy;
+    }
+
+    int getPoolSize() {
+        return poolSize;
+    }
+
+    int getQueueSize() {
+        return queueSize;
+    }
+
+    int getQueueDepth() {
+        return queued.get();
+    }
+
+    long getDispatched() {
+        return dispatched.sum();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    long getMeanWaitTime() {
+        final long count = dispatched.sum();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitTime.sum() / count) : 0;
+    }
+
+    long getMaxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get());
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    private boolean tryEnqueue() {
+        for (;;) {
+            final int current = queued.get();
+
+            if (current >= queueSize) {
+                return false;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+}
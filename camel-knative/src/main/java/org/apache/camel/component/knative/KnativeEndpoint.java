@@ -22,6 +22,8 @@ import org.apache.camel.DelegateEndpoint;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Processor;
 import org.apache.camel.Producer;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.cloud.ServiceDefinition;
 import org.apache.camel.component.knative.ce.CloudEventsProcessors;
 import org.apache.camel.k.adapter.DefaultEndpoint;
@@ -35,8 +37,14 @@ import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.StringHelper;
 import org.apache.camel.util.URISupport;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
 
 @UriEndpoint(
@@ -45,6 +53,7 @@ import java.util.Map;
     syntax = "knative:type/target",
     title = "Knative",
     label = "cloud,eventing")
+@ManagedResource(description = "Managed KnativeEndpoint")
 public class KnativeEndpoint extends DefaultEndpoint implements DelegateEndpoint {
     @UriPath(description = "The Knative type")
     private final Knative.Type type;
@@ -55,38 +64,89 @@ public class KnativeEndpoint extends DefaultEndpoint implements DelegateEndpoint
     @UriParam
     private final KnativeConfiguration configuration;
 
-    private final KnativeEnvironment environment;
-    private final KnativeEnvironment.KnativeServiceDefinition service;
-    private final Endpoint endpoint;
+    private final String remaining;
+    private final int poolMaxConnections;
+    private final long poolIdleTimeout;
+    private final int poolMaxPendingAcquires;
+    private final long poolAcquireTimeout;
+    private final int maxInflightExchanges;
+    private final String concurrencyLimit;
+    private final int dispatchPoolSize;
+    private final int dispatchQueueSize;
+    private final String payloadEncoding;
+    private final String loadBalancer;
+    private final long hedgeDelay;
+    private final double hedgeDelayPercentile;
+    private final int batchSize;
+    private final long batchLingerTime;
+    private final int deduplicationCacheSize;
+    private final long deduplicationTtl;
+    private final int batchParallelism;
+    private final int aggregationSize;
+    private final long aggregationTimeout;
+    private final Set<KnativeTargetProcessor> targets;
+
+    private volatile KnativeEnvironment environment;
+    private volatile KnativeEnvironment.KnativeServiceDefinition service;
+    private volatile Endpoint endpoint;
+    private volatile List<Endpoint> endpoints;
+
+    private volatile KnativeDispatchProcessor dispatcher;
+    private volatile KnativeDeduplicationProcessor deduplicator;
+    private volatile KnativeSplitProcessor splitter;
+    private volatile KnativeAggregationProcessor aggregator;
 
     public KnativeEndpoint(String uri, KnativeComponent component, Knative.Type targetType, String remaining, KnativeConfiguration configuration) {
         super(uri, component);
 
         this.type = targetType;
         this.name = remaining.indexOf('/') != -1 ? StringHelper.before(remaining, "/") : remaining;
+        this.remaining = remaining;
+        this.targets = new CopyOnWriteArraySet<>();
         this.configuration = configuration;
         this.environment =  this.configuration.getEnvironment();
-        this.service = this.environment.lookupServiceOrDefault(targetType, remaining);
 
-        switch (service.getProtocol()) {
-        case http:
-        case https:
-            this.endpoint = http(component.getCamelContext(), service);
-            break;
-        default:
-            throw new IllegalArgumentException("unsupported protocol: " + this.service.getProtocol());
-        }
+        final List<KnativeEnvironment.KnativeServiceDefinition> instances = this.environment.lookupServicesOrDefault(targetType, remaining);
+
+        this.service = instances.get(0);
+
+        //
+        // The pool and concurrency settings provided by the service definition override
+        // the ones set on the endpoint so each sink/source can be tuned individually.
+        //
+        this.poolMaxConnections = option(service, Knative.POOL_MAX_CONNECTIONS, configuration.getPoolMaxConnections());
+        this.poolIdleTimeout = option(service, Knative.POOL_IDLE_TIMEOUT, configuration.getPoolIdleTimeout());
+        this.poolMaxPendingAcquires = option(service, Knative.POOL_MAX_PENDING_ACQUIRES, configuration.getPoolMaxPendingAcquires());
+        this.poolAcquireTimeout = option(service, Knative.POOL_ACQUIRE_TIMEOUT, configuration.getPoolAcquireTimeout());
+        this.maxInflightExchanges = option(service, Knative.CONSUMER_MAX_INFLIGHT_EXCHANGES, configuration.getMaxInflightExchanges());
+        this.concurrencyLimit = option(service, Knative.CONSUMER_CONCURRENCY_LIMIT, configuration.getConcurrencyLimit());
+        this.dispatchPoolSize = option(service, Knative.CONSUMER_DISPATCH_POOL_SIZE, configuration.getDispatchPoolSize());
+        this.dispatchQueueSize = option(service, Knative.CONSUMER_DISPATCH_QUEUE_SIZE, configuration.getDispatchQueueSize());
+        this.payloadEncoding = option(service, Knative.PAYLOAD_ENCODING, configuration.getPayloadEncoding());
+        this.loadBalancer = option(service, Knative.PRODUCER_LOAD_BALANCER, configuration.getLoadBalancer());
+        this.hedgeDelay = option(service, Knative.PRODUCER_HEDGE_DELAY, configuration.getHedgeDelay());
+        this.hedgeDelayPercentile = option(service, Knative.PRODUCER_HEDGE_DELAY_PERCENTILE, configuration.getHedgeDelayPercentile());
+        this.batchSize = option(service, Knative.PRODUCER_BATCH_SIZE, configuration.getBatchSize());
+        this.batchLingerTime = option(service, Knative.PRODUCER_BATCH_LINGER_TIME, configuration.getBatchLingerTime());
+        this.deduplicationCacheSize = option(service, Knative.CONSUMER_DEDUPLICATION_CACHE_SIZE, configuration.getDeduplicationCacheSize());
+        this.deduplicationTtl = option(service, Knative.CONSUMER_DEDUPLICATION_TTL, configuration.getDeduplicationTtl());
+        this.batchParallelism = option(service, Knative.CONSUMER_BATCH_PARALLELISM, configuration.getBatchParallelism());
+        this.aggregationSize = option(service, Knative.CONSUMER_AGGREGATION_SIZE, configuration.getAggregationSize());
+        this.aggregationTimeout = option(service, Knative.CONSUMER_AGGREGATION_TIMEOUT, configuration.getAggregationTimeout());
+
+        this.endpoints = bind(component.getCamelContext(), instances);
+        this.endpoint = endpoints.get(0);
     }
 
     @Override
     protected void doStart() throws Exception {
         super.doStart();
-        Services.start(endpoint);
+        Services.start(endpoints.toArray());
     }
 
     @Override
     protected void doStop() throws Exception {
-        Services.stop(endpoint);
+        Services.stop(endpoints.toArray());
         super.doStop();
     }
 
@@ -98,17 +158,112 @@ public class KnativeEndpoint extends DefaultEndpoint implements DelegateEndpoint
     @Override
     public Producer createProducer() throws Exception {
         final String version = configuration.getCloudEventsSpecVersion();
-        final Processor ceProcessor = CloudEventsProcessors.forSpecversion(version).producerProcessor(this);
-        final Processor ceConverter = new KnativeConversionProcessor(configuration.isJsonSerializationEnabled());
+        final CloudEventsProcessors ce = CloudEventsProcessors.forSpecversion(version);
+        final Processor ceProcessor = ce.producerProcessor(this);
+        final KnativePayloadCodec codec = getPayloadCodec();
+        final List<Processor> processors = new ArrayList<>(3);
+
+        // batches are arrays of structured events
+        if (batchSize > 1 || "structured".equalsIgnoreCase(configuration.getCloudEventsContentMode())) {
+            // in structured mode the body is written to the event envelope as the
+            // JSON value it is, so it doesn't need to be serialized beforehand
+            // unless a binary encoding is used, then the envelope holds it base64
+            if (codec != null && !KnativeJacksonCodec.MIME_JSON.equals(codec.getContentType())) {
+                processors.add(new KnativeConversionProcessor(codec));
+            }
 
-        return new KnativeProducer(this, ceProcessor, ceConverter, endpoint.createProducer());
+            processors.add(ce.structuredProducerProcessor(this));
+        } else if (codec != null) {
+            processors.add(new KnativeConversionProcessor(codec));
+        } else {
+            processors.add(new KnativeConversionProcessor(configuration.isJsonSerializationEnabled()));
+        }
+
+        final KnativeTargetProcessor target = new KnativeTargetProcessor(
+            endpoints,
+            targets,
+            KnativeTargetProcessor.Balancer.valueOf(loadBalancer),
+            configuration.getOutlierConsecutiveFailures(),
+            configuration.getOutlierEjectionTime(),
+            hedgeDelay,
+            hedgeDelayPercentile);
+
+        final KnativeConnectionGate gate = poolMaxConnections > 0
+            ? new KnativeConnectionGate(name, poolMaxConnections, poolMaxPendingAcquires, poolAcquireTimeout)
+            : null;
+
+        if (batchSize > 1) {
+            final KnativeBatchProcessor batcher = new KnativeBatchProcessor(getCamelContext(), "KnativeBatch[" + name + "]", batchSize, batchLingerTime, gate, target);
+            return new KnativeProducer(this, gate, batcher, ceProcessor, processors.toArray(new Processor[0]));
+        }
+
+        processors.add(target);
+
+        return new KnativeProducer(this, gate, ceProcessor, processors.toArray(new Processor[0]));
     }
 
     @Override
     public Consumer createConsumer(Processor processor) throws Exception {
         final String version = configuration.getCloudEventsSpecVersion();
-        final Processor ceProcessor = CloudEventsProcessors.forSpecversion(version).consumerProcessor(this);
-        final Processor pipeline = Pipeline.newInstance(getCamelContext(), ceProcessor, processor);
+        final CloudEventsProcessors ce = CloudEventsProcessors.forSpecversion(version);
+        final Processor ceProcessor = ce.consumerProcessor(this);
+        final KnativeConcurrencyLimit.Strategy strategy = getConcurrencyLimitStrategy();
+        final KnativePayloadCodec codec = getPayloadCodec();
+        final Class<?> dataType = ObjectHelper.isNotEmpty(configuration.getDataType())
+            ? getCamelContext().getClassResolver().resolveMandatoryClass(configuration.getDataType())
+            : null;
+
+        Processor pipeline = processor;
+
+        // the route gets the decoded data of the events it aggregates
+        if (aggregationSize > 1) {
+            aggregator = new KnativeAggregationProcessor(getCamelContext(), "KnativeAggregation[" + name + "]", aggregationSize, aggregationTimeout, pipeline);
+            pipeline = aggregator;
+        }
+
+        if (codec != null || dataType != null) {
+            pipeline = Pipeline.newInstance(
+                getCamelContext(),
+                new KnativeDecodingProcessor(codec != null ? codec : KnativeJacksonCodec.JSON, dataType != null ? dataType : Object.class),
+                pipeline);
+        }
+
+        // duplicates are detected once the attributes of structured events have
+        // been bound to headers, but before their data is decoded
+        if (deduplicationCacheSize > 0) {
+            deduplicator = new KnativeDeduplicationProcessor(deduplicationCacheSize, deduplicationTtl, pipeline);
+            pipeline = deduplicator;
+        }
+
+        // batches are split into an exchange per event, whose attributes are bound
+        // while reading the batch rather than by the ce processor
+        splitter = new KnativeSplitProcessor(getCamelContext(), ce, "KnativeSplit[" + name + "]", batchParallelism, ceProcessor, pipeline);
+        pipeline = splitter;
+
+        // run the route on the workers dedicated to this consumer
+        if (dispatchPoolSize > 0) {
+            dispatcher = new KnativeDispatchProcessor(
+                getCamelContext(),
+                "KnativeDispatch[" + name + "]",
+                dispatchPoolSize,
+                dispatchQueueSize,
+                KnativeDispatchProcessor.SaturationPolicy.valueOf(configuration.getDispatchSaturationPolicy()),
+                pipeline);
+
+            // the aggregates completed by the timeout are routed on the same workers
+            if (aggregationSize > 1) {
+                aggregator.setDispatcher(dispatcher);
+            }
+
+            pipeline = dispatcher;
+        }
+
+        // the limit is enforced before exchanges are enqueued so the rejected
+        // ones don't take space in the dispatch queue
+        if (strategy != null) {
+            pipeline = new KnativeConcurrencyLimitProcessor(strategy.newLimit(), pipeline);
+        }
+
         final Consumer consumer = endpoint.createConsumer(pipeline);
 
         configureConsumer(consumer);
@@ -138,13 +293,355 @@ public class KnativeEndpoint extends DefaultEndpoint implements DelegateEndpoint
         return service;
     }
 
+    public int getPoolMaxConnections() {
+        return poolMaxConnections;
+    }
+
+    public long getPoolIdleTimeout() {
+        return poolIdleTimeout;
+    }
+
+    public int getPoolMaxPendingAcquires() {
+        return poolMaxPendingAcquires;
+    }
+
+    public long getPoolAcquireTimeout() {
+        return poolAcquireTimeout;
+    }
+
+    public int getMaxInflightExchanges() {
+        return maxInflightExchanges;
+    }
+
+    public int getDispatchPoolSize() {
+        return dispatchPoolSize;
+    }
+
+    public int getDispatchQueueSize() {
+        return dispatchQueueSize;
+    }
+
+    public int getDeduplicationCacheSize() {
+        return deduplicationCacheSize;
+    }
+
+    public long getDeduplicationTtl() {
+        return deduplicationTtl;
+    }
+
+    /**
+     * The strategy used to create the adaptive concurrency limit of the consumers, either
+     * the one set on the configuration or the one named by concurrencyLimit.
+     *
+     * @return the strategy or null if the consumers are not limited
+     */
+    public KnativeConcurrencyLimit.Strategy getConcurrencyLimitStrategy() {
+        if (configuration.getConcurrencyLimitStrategy() != null) {
+            return configuration.getConcurrencyLimitStrategy();
+        }
+        if (ObjectHelper.isEmpty(concurrencyLimit)) {
+            return null;
+        }
+
+        switch (concurrencyLimit.trim().toLowerCase(Locale.US)) {
+        case "none":
+            return null;
+        case "aimd":
+            final long threshold = configuration.getConcurrencyLimitLatencyThreshold();
+            return () -> new KnativeAimdLimit(threshold, TimeUnit.MILLISECONDS);
+        case "gradient":
+            return KnativeGradientLimit::new;
+        default:
+            throw new IllegalArgumentException("Unsupported concurrency limit: " + concurrencyLimit);
+        }
+    }
+
+    /**
+     * The codec used to encode and decode the event data, either the one set on the
+     * configuration or the one named by payloadEncoding.
+     *
+     * @return the codec or null if no encoding has been configured
+     */
+    public KnativePayloadCodec getPayloadCodec() {
+        if (configuration.getPayloadCodec() != null) {
+            return configuration.getPayloadCodec();
+        }
+        if (ObjectHelper.isEmpty(payloadEncoding)) {
+            return null;
+        }
+
+        switch (payloadEncoding.trim().toLowerCase(Locale.US)) {
+        case "json":
+            return KnativeJacksonCodec.JSON;
+        case "cbor":
+            return KnativeJacksonCodec.cbor(getCamelContext().getClassResolver());
+        case "smile":
+            return KnativeJacksonCodec.smile(getCamelContext().getClassResolver());
+        default:
+            throw new IllegalArgumentException("Unsupported payload encoding: " + payloadEncoding);
+        }
+    }
+
+    /**
+     * Bind the producers of this endpoint to the instances of the service the given environment
+     * defines, when this endpoint has been created from the previous environment. Only the
+     * instances whose address has changed are replaced, the others keep their connections,
+     * while consumers and the settings coming from the service metadata are not affected.
+     *
+     * @return true if the producers have been moved to other addresses
+     */
+    synchronized boolean reload(KnativeEnvironment previous, KnativeEnvironment next) throws Exception {
+        if (environment != previous) {
+            return false;
+        }
+
+        final List<KnativeEnvironment.KnativeServiceDefinition> instances = next.lookupServicesOrDefault(type, remaining);
+        final List<Endpoint> targets = bind(getCamelContext(), instances);
+
+        this.environment = next;
+        this.service = instances.get(0);
+
+        if (targets.equals(endpoints)) {
+            return false;
+        }
+
+        Services.start(targets.toArray());
+
+        final List<Endpoint> previousEndpoints = this.endpoints;
+
+        this.endpoints = targets;
+        this.endpoint = targets.get(0);
+
+        for (KnativeTargetProcessor processor : this.targets) {
+            processor.swap(targets);
+        }
+
+        // the producers of the endpoints no longer targeted have been retired, so the
+        // endpoints are removed from the context unless another knative endpoint is
+        // still bound to them
+        for (Endpoint previousEndpoint : previousEndpoints) {
+            if (!targets.contains(previousEndpoint) && !getComponent().isBound(previousEndpoint)) {
+                getCamelContext().removeEndpoint(previousEndpoint);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if the given endpoint is one of the instances the producers of this endpoint send to
+     */
+    boolean isBoundTo(Endpoint endpoint) {
+        return endpoints.contains(endpoint);
+    }
+
+    // *****************************
+    //
+    // Metrics
+    //
+    // *****************************
+
+    @ManagedAttribute(description = "The number of exchanges waiting for a dispatch worker")
+    public int getDispatchQueueDepth() {
+        final KnativeDispatchProcessor answer = dispatcher;
+        return answer != null ? answer.getQueueDepth() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges handed over to a dispatch worker")
+    public long getDispatchedExchanges() {
+        final KnativeDispatchProcessor answer = dispatcher;
+        return answer != null ? answer.getDispatched() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges received while the dispatch queue was full")
+    public long getDispatchRejectedExchanges() {
+        final KnativeDispatchProcessor answer = dispatcher;
+        return answer != null ? answer.getRejected() : 0;
+    }
+
+    @ManagedAttribute(description = "The mean time in millis exchanges waited for a dispatch worker")
+    public long getDispatchMeanWaitTime() {
+        final KnativeDispatchProcessor answer = dispatcher;
+        return answer != null ? answer.getMeanWaitTime() : 0;
+    }
+
+    @ManagedAttribute(description = "The max time in millis an exchange waited for a dispatch worker")
+    public long getDispatchMaxWaitTime() {
+        final KnativeDispatchProcessor answer = dispatcher;
+        return answer != null ? answer.getMaxWaitTime() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of instances of the sink producers balance the exchanges across")
+    public int getLoadBalancerInstances() {
+        return endpoints.size();
+    }
+
+    @ManagedAttribute(description = "The number of instances of the sink currently ejected")
+    public int getLoadBalancerEjectedInstances() {
+        int answer = 0;
+        for (KnativeTargetProcessor processor : targets) {
+            answer = Math.max(answer, processor.getEjectedInstances());
+        }
+
+        return answer;
+    }
+
+    @ManagedAttribute(description = "The number of times an instance of the sink has been ejected")
+    public long getLoadBalancerEjections() {
+        long answer = 0;
+        for (KnativeTargetProcessor processor : targets) {
+            answer += processor.getEjections();
+        }
+
+        return answer;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges sent again because the sink was slow to answer")
+    public long getHedgedExchanges() {
+        long answer = 0;
+        for (KnativeTargetProcessor processor : targets) {
+            answer += processor.getHedges();
+        }
+
+        return answer;
+    }
+
+    @ManagedAttribute(description = "The number of hedged exchanges answered before the original attempt")
+    public long getHedgeWins() {
+        long answer = 0;
+        for (KnativeTargetProcessor processor : targets) {
+            answer += processor.getHedgeWins();
+        }
+
+        return answer;
+    }
+
+    @ManagedAttribute(description = "The current time in millis after which an exchange is hedged, 0 if hedging is disabled")
+    public long getHedgeDelay() {
+        long answer = 0;
+        for (KnativeTargetProcessor processor : targets) {
+            answer = Math.max(answer, processor.getHedgeDelay());
+        }
+
+        return answer;
+    }
+
+    @ManagedAttribute(description = "The number of batches of events received")
+    public long getReceivedBatches() {
+        final KnativeSplitProcessor answer = splitter;
+        return answer != null ? answer.getBatches() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of events received in batches")
+    public long getReceivedBatchedExchanges() {
+        final KnativeSplitProcessor answer = splitter;
+        return answer != null ? answer.getBatchedExchanges() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of aggregates of events routed")
+    public long getAggregates() {
+        final KnativeAggregationProcessor answer = aggregator;
+        return answer != null ? answer.getAggregates() : 0;
+    }
+
+    @ManagedAttribute(description = "The mean number of events in the aggregates routed")
+    public long getAggregationMeanSize() {
+        final KnativeAggregationProcessor answer = aggregator;
+        return answer != null ? answer.getMeanSize() : 0;
+    }
+
+    @ManagedAttribute(description = "The max number of events in an aggregate routed")
+    public long getAggregationMaxSize() {
+        final KnativeAggregationProcessor answer = aggregator;
+        return answer != null ? answer.getMaxSize() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of aggregates per number of events")
+    public String getAggregationSizeDistribution() {
+        final KnativeAggregationProcessor answer = aggregator;
+        return answer != null ? answer.getSizeDistribution() : null;
+    }
+
+    @ManagedAttribute(description = "The number of aggregates routed because the aggregation timeout elapsed")
+    public long getAggregationsCompletedByTimeout() {
+        final KnativeAggregationProcessor answer = aggregator;
+        return answer != null ? answer.getCompletedByTimeout() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of events waiting for their aggregate to be routed")
+    public int getAggregationPendingExchanges() {
+        final KnativeAggregationProcessor answer = aggregator;
+        return answer != null ? answer.getPendingExchanges() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of duplicated events acknowledged without being processed")
+    public long getDuplicateExchanges() {
+        final KnativeDeduplicationProcessor answer = deduplicator;
+        return answer != null ? answer.getDuplicates() : 0;
+    }
+
     // *****************************
     //
     // Helpers
     //
     // *****************************
 
-    private static Endpoint http(CamelContext context, ServiceDefinition definition) {
+    private static int option(ServiceDefinition definition, String key, int defaultValue) {
+        final String value = definition.getMetadata().get(key);
+
+        try {
+            return ObjectHelper.isNotEmpty(value) ? Integer.parseInt(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    private static String option(ServiceDefinition definition, String key, String defaultValue) {
+        final String value = definition.getMetadata().get(key);
+
+        return ObjectHelper.isNotEmpty(value) ? value.trim() : defaultValue;
+    }
+
+    private static long option(ServiceDefinition definition, String key, long defaultValue) {
+        final String value = definition.getMetadata().get(key);
+
+        try {
+            return ObjectHelper.isNotEmpty(value) ? Long.parseLong(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    private static double option(ServiceDefinition definition, String key, double defaultValue) {
+        final String value = definition.getMetadata().get(key);
+
+        try {
+            return ObjectHelper.isNotEmpty(value) ? Double.parseDouble(value.trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    private List<Endpoint> bind(CamelContext context, List<KnativeEnvironment.KnativeServiceDefinition> definitions) {
+        final List<Endpoint> answer = new ArrayList<>(definitions.size());
+        for (KnativeEnvironment.KnativeServiceDefinition definition : definitions) {
+            answer.add(bind(context, definition));
+        }
+
+        return answer;
+    }
+
+    private Endpoint bind(CamelContext context, KnativeEnvironment.KnativeServiceDefinition definition) {
+        switch (definition.getProtocol()) {
+        case http:
+        case https:
+            return http(context, definition, poolMaxConnections, poolIdleTimeout, maxInflightExchanges);
+        default:
+            throw new IllegalArgumentException("unsupported protocol: " + definition.getProtocol());
+        }
+    }
+
+    private static Endpoint http(CamelContext context, ServiceDefinition definition, int poolMaxConnections, long poolIdleTimeout, int maxInflightExchanges) {
         try {
             final String scheme = Knative.HTTP_COMPONENT;
             final String protocol = definition.getMetadata().getOrDefault(Knative.KNATIVE_PROTOCOL, "http");
@@ -200,6 +697,28 @@ public class KnativeEndpoint extends DefaultEndpoint implements DelegateEndpoint
             // path that is the default to make istio working
             parameters.put("useRelativePath", "true");
 
+            // keep up to poolMaxConnections connections open so they can be
+            // reused instead of being closed as soon as they are returned to
+            // the pool, which would lead to a lot of sockets in TIME_WAIT.
+            parameters.put("keepAlive", "true");
+            parameters.put("producerPoolMinEvictableIdle", Long.toString(poolIdleTimeout));
+            if (poolMaxConnections > 0) {
+                parameters.put("producerPoolMaxActive", Integer.toString(poolMaxConnections));
+                parameters.put("producerPoolMaxIdle", Integer.toString(poolMaxConnections));
+            }
+
+            // shed the requests exceeding the number of exchanges the consumer is
+            // allowed to process concurrently
+            if (maxInflightExchanges > 0) {
+                parameters.put("maxInflightExchanges", Integer.toString(maxInflightExchanges));
+            }
+
+            // use HTTP/2 over cleartext connections so requests to the same
+            // sink are multiplexed over a single connection
+            if (Boolean.parseBoolean(definition.getMetadata().get(Knative.HTTP_H2C))) {
+                parameters.put("h2c", "true");
+            }
+
             uri = URISupport.appendParametersToURI(uri, parameters);
 
             return context.getEndpoint(uri);
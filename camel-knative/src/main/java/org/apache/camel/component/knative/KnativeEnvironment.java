@@ -22,6 +22,7 @@ import org.apache.camel.CamelContext;
 import org.apache.camel.impl.cloud.DefaultServiceDefinition;
 import org.apache.camel.k.adapter.Resources;
 import org.apache.camel.util.CollectionHelper;
+import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.StringHelper;
 
 import java.io.InputStream;
@@ -29,25 +30,36 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Stream;
 
 /*
  * Assuming it is loaded from a json for now
+ *
+ * The services are indexed by type and name once loaded, so looking up the service of an
+ * endpoint does not depend on the number of services. When more than a service has the
+ * same type and name, the first one wins unless all the instances of the service are looked
+ * up, in which case they are balanced by the producers.
  */
 public class KnativeEnvironment {
     private final List<KnativeServiceDefinition> services;
+    private final Map<Knative.Type, Map<String, List<KnativeServiceDefinition>>> index;
 
     @JsonCreator
     public KnativeEnvironment(
         @JsonProperty(value = "services", required = true) List<KnativeServiceDefinition> services) {
 
-        this.services = new ArrayList<>(services);
+        this.services = Collections.unmodifiableList(new ArrayList<>(services));
+        this.index = new EnumMap<>(Knative.Type.class);
+
+        for (KnativeServiceDefinition service : this.services) {
+            index.computeIfAbsent(service.getType(), t -> new HashMap<>()).computeIfAbsent(service.getName(), n -> new ArrayList<>()).add(service);
+        }
     }
 
     public Stream<KnativeServiceDefinition> stream() {
@@ -55,12 +67,13 @@ public class KnativeEnvironment {
     }
 
     public Optional<KnativeServiceDefinition> lookupService(Knative.Type type, String name, String... aliases) {
-        return Stream.concat(Stream.of(name), Stream.of(aliases))
-            .sequential()
-            .map(n -> lookup(type, n))
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .findFirst();
+        KnativeServiceDefinition answer = lookup(type, name);
+
+        for (int i = 0; answer == null && i < aliases.length; i++) {
+            answer = lookup(type, aliases[i]);
+        }
+
+        return Optional.ofNullable(answer);
     }
 
     public KnativeServiceDefinition mandatoryLookupService(Knative.Type type, String name) {
@@ -71,7 +84,30 @@ public class KnativeEnvironment {
 
 
     public KnativeServiceDefinition lookupServiceOrDefault(Knative.Type type, String name) {
-        return lookupService(type, name, "default").orElseGet(() -> computeServiceDefinition(type, name));
+        KnativeServiceDefinition answer = lookup(type, name);
+        if (answer == null) {
+            answer = lookup(type, "default");
+        }
+
+        return answer != null ? answer : computeServiceDefinition(type, name);
+    }
+
+    /**
+     * Look up all the instances of a service: the services with the same type and name and
+     * the addresses listed by their service.hosts metadata.
+     *
+     * @return the instances, the first one being what {@link #lookupServiceOrDefault} returns
+     */
+    public List<KnativeServiceDefinition> lookupServicesOrDefault(Knative.Type type, String name) {
+        List<KnativeServiceDefinition> answer = lookupAll(type, name);
+        if (answer.isEmpty()) {
+            answer = lookupAll(type, "default");
+        }
+        if (answer.isEmpty()) {
+            answer = Collections.singletonList(computeServiceDefinition(type, name));
+        }
+
+        return answer;
     }
 
     // ************************
@@ -80,38 +116,71 @@ public class KnativeEnvironment {
     //
     // ************************
 
-     private Optional<KnativeServiceDefinition> lookup(Knative.Type type, String name) {
-         final String contextPath = StringHelper.after(name, "/");
-         final String serviceName = (contextPath == null) ? name : StringHelper.before(name, "/");
-
-         return services.stream()
-             .filter(definition -> {
-                 return Objects.equals(type.name(), definition.getMetadata().get(Knative.KNATIVE_TYPE))
-                     && Objects.equals(serviceName, definition.getName());
-             })
-             .map(definition -> {
-                 //
-                 // The context path set on the endpoint  overrides the one
-                 // eventually provided by the service definition.
-                 //
-                 if (contextPath != null) {
-                     return new KnativeServiceDefinition(
-                         definition.getType(),
-                         definition.getProtocol(),
-                         definition.getName(),
-                         definition.getHost(),
-                         definition.getPort(),
-                         KnativeSupport.mergeMaps(
-                             definition.getMetadata(),
-                             Collections.singletonMap(Knative.SERVICE_META_PATH, "/" + contextPath)
-                         )
-                     );
-                 }
-
-                 return definition;
-             })
-             .findFirst();
+    private KnativeServiceDefinition lookup(Knative.Type type, String name) {
+        final int separator = name.indexOf('/');
+        final List<KnativeServiceDefinition> definitions = definitions(type, separator == -1 ? name : name.substring(0, separator));
+
+        if (definitions.isEmpty()) {
+            return null;
+        }
+
+        //
+        // The context path set on the endpoint  overrides the one
+        // eventually provided by the service definition.
+        //
+        if (separator != -1) {
+            return definitions.get(0).withPath("/" + name.substring(separator + 1));
+        }
+
+        return definitions.get(0);
+    }
+
+    private List<KnativeServiceDefinition> lookupAll(Knative.Type type, String name) {
+        final int separator = name.indexOf('/');
+        final List<KnativeServiceDefinition> definitions = definitions(type, separator == -1 ? name : name.substring(0, separator));
+        final List<KnativeServiceDefinition> answer = new ArrayList<>(definitions.size());
+
+        for (KnativeServiceDefinition definition : definitions) {
+            if (separator != -1) {
+                definition = definition.withPath("/" + name.substring(separator + 1));
+            }
 
+            final String hosts = definition.getMetadata().get(Knative.SERVICE_META_HOSTS);
+            if (ObjectHelper.isEmpty(hosts)) {
+                answer.add(definition);
+                continue;
+            }
+
+            for (String host : hosts.split(",")) {
+                host = host.trim();
+
+                if (!host.isEmpty()) {
+                    // the port follows the closing bracket of ipv6 literals, i.e. [::1]:8080
+                    final int colon = host.lastIndexOf(':');
+
+                    answer.add(colon == -1 || colon < host.lastIndexOf(']')
+                        ? definition.withAddress(host, definition.getPort())
+                        : definition.withAddress(host.substring(0, colon), port(definition.getName(), host, host.substring(colon + 1))));
+                }
+            }
+        }
+
+        return answer;
+    }
+
+    private static int port(String name, String host, String port) {
+        try {
+            return Integer.parseInt(port);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port in the entry \"" + host + "\" of the hosts of the service \"" + name + "\"", e);
+        }
+    }
+
+    private List<KnativeServiceDefinition> definitions(Knative.Type type, String name) {
+        final Map<String, List<KnativeServiceDefinition>> definitions = index.get(type);
+        final List<KnativeServiceDefinition> answer = definitions != null ? definitions.get(name) : null;
+
+        return answer != null ? answer : Collections.emptyList();
     }
 
     public static KnativeServiceDefinition computeServiceDefinition(Knative.Type type, String name) {
@@ -159,9 +228,30 @@ public class KnativeEnvironment {
             //              "port": "",
             //              "metadata": {
             //                  "service.path": "",
+            //                  "service.hosts": "",
             //                  "knative.event.type": "",
             //                  "filter.header.name": "",
-            //                  "filter.header.value": ""
+            //                  "filter.header.value": "",
+            //                  "pool.max.connections": "",
+            //                  "pool.idle.timeout": "",
+            //                  "pool.max.pending.acquires": "",
+            //                  "pool.acquire.timeout": "",
+            //                  "http.h2c": "",
+            //                  "producer.load.balancer": "",
+            //                  "producer.hedge.delay": "",
+            //                  "producer.hedge.delay.percentile": "",
+            //                  "producer.batch.size": "",
+            //                  "producer.batch.linger.time": "",
+            //                  "payload.encoding": "",
+            //                  "consumer.max.inflight.exchanges": "",
+            //                  "consumer.concurrency.limit": "",
+            //                  "consumer.dispatch.pool.size": "",
+            //                  "consumer.dispatch.queue.size": "",
+            //                  "consumer.deduplication.cache.size": "",
+            //                  "consumer.deduplication.ttl": "",
+            //                  "consumer.batch.parallelism": "",
+            //                  "consumer.aggregation.size": "",
+            //                  "consumer.aggregation.timeout": ""
             //              }
             //         },
             //     ]
@@ -179,6 +269,9 @@ public class KnativeEnvironment {
     // ************************
 
     public final static class KnativeServiceDefinition extends DefaultServiceDefinition {
+        private final Knative.Type type;
+        private final Knative.Protocol protocol;
+
         @JsonCreator
         public KnativeServiceDefinition(
             @JsonProperty(value = "type", required = true) Knative.Type type,
@@ -199,14 +292,41 @@ public class KnativeEnvironment {
                         Knative.KNATIVE_PROTOCOL, protocol.name())
                 )
             );
+
+            this.type = type;
+            this.protocol = protocol;
+        }
+
+        private KnativeServiceDefinition(KnativeServiceDefinition definition, String host, int port, Map<String, String> metadata) {
+            super(definition.getName(), host, port, metadata);
+
+            this.type = definition.type;
+            this.protocol = definition.protocol;
         }
 
         public Knative.Type getType() {
-            return Knative.Type.valueOf(getMetadata().get(Knative.KNATIVE_TYPE));
+            return type;
         }
 
         public Knative.Protocol getProtocol() {
-            return Knative.Protocol.valueOf(getMetadata().get(Knative.KNATIVE_PROTOCOL));
+            return protocol;
+        }
+
+        /**
+         * A copy of this definition with the given path.
+         */
+        public KnativeServiceDefinition withPath(String path) {
+            final Map<String, String> metadata = new HashMap<>(getMetadata());
+            metadata.put(Knative.SERVICE_META_PATH, path);
+
+            return new KnativeServiceDefinition(this, getHost(), getPort(), metadata);
+        }
+
+        /**
+         * A copy of this definition with the given address.
+         */
+        public KnativeServiceDefinition withAddress(String host, int port) {
+            return new KnativeServiceDefinition(this, host, port, getMetadata());
         }
 
         public String getPath() {
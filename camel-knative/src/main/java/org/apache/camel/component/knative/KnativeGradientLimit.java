@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+/**
+ * A limit driven by the ratio between the long term average latency and the latency of the
+ * last exchange: as long as the latter does not exceed the former by more than tolerance, the
+ * limit grows by the square root of its value so a small queue can build up, otherwise it
+ * shrinks proportionally to the gradient. A dropped exchange halves the target limit.
+ *
+ * The long term average is an exponential moving average over window samples, which decays
+ * faster when the latency drops well below it so the limit recovers quickly once a slow
+ * downstream sink is back to normal.
+ */
+public final class KnativeGradientLimit implements KnativeConcurrencyLimit {
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+    public static final double DEFAULT_SMOOTHING = 0.2;
+    public static final double DEFAULT_TOLERANCE = 1.5;
+    public static final int DEFAULT_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final double factor;
+    private double limit;
+    private double longRtt;
+
+    public KnativeGradientLimit() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_SMOOTHING, DEFAULT_TOLERANCE, DEFAULT_WINDOW);
+    }
+
+    public KnativeGradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double tolerance, int window) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limits (initial: " + initialLimit + ", min: " + minLimit + ", max: " + maxLimit + ")");
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Smoothing must be in the (0, 1] range: " + smoothing);
+        }
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("Tolerance must be greater or equal to 1: " + tolerance);
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be greater than 0: " + window);
+        }
+
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.factor = 2.0 / (window + 1);
+    }
+
+    @Override
+    public int getLimit() {
+        return (int)limit;
+    }
+
+    @Override
+    public void onSample(long rtt, int inflight, boolean dropped) {
+        final double shortRtt = Math.max(1, rtt);
+
+        longRtt = longRtt == 0 ? shortRtt : longRtt + factor * (shortRtt - longRtt);
+
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        final double gradient;
+        if (dropped) {
+            gradient = 0.5;
+        } else if (inflight < limit / 2) {
+            // don't grow the limit when the consumer is not using it
+            return;
+        } else {
+            gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        }
+
+        final double queueSize = dropped ? 0 : Math.sqrt(limit);
+        final double target = limit * gradient + queueSize;
+
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+    }
+
+    @Override
+    public String toString() {
+        return "KnativeGradientLimit[limit=" + getLimit() + "]";
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.apache.camel.spi.ClassResolver;
+
+/**
+ * A {@link KnativePayloadCodec} backed by a jackson {@link ObjectMapper}, so the same
+ * objects can be exchanged as JSON or as one of the binary formats jackson supports.
+ *
+ * The binary formats are provided by the jackson dataformat modules, which are not
+ * dependencies of this component: their factory is looked up by name so the module has
+ * only to be added to the classpath of the integrations using it.
+ *
+ * The writers and readers are prepared once per type, so the serializer of a type is
+ * not looked up again for each exchange. Bytecode generated serializers such as the ones
+ * of the afterburner module can be used by creating the codec with a mapper registering
+ * the module.
+ */
+public final class KnativeJacksonCodec implements KnativePayloadCodec {
+    public static final String MIME_JSON = "application/json";
+    public static final String MIME_CBOR = "application/cbor";
+    public static final String MIME_SMILE = "application/x-jackson-smile";
+
+    public static final KnativeJacksonCodec JSON = new KnativeJacksonCodec(Knative.MAPPER, MIME_JSON);
+
+    private static final String CBOR_FACTORY = "com.fasterxml.jackson.dataformat.cbor.CBORFactory";
+    private static final String SMILE_FACTORY = "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+
+    private final ObjectMapper mapper;
+    private final String contentType;
+    private final Map<Class<?>, ObjectWriter> writers;
+    private final Map<Class<?>, ObjectReader> readers;
+
+    public KnativeJacksonCodec(ObjectMapper mapper, String contentType) {
+        this.mapper = mapper;
+        this.contentType = contentType;
+        this.writers = new ConcurrentHashMap<>();
+        this.readers = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws Exception {
+        return writer(value.getClass()).writeValueAsBytes(value);
+    }
+
+    @Override
+    public Object decode(byte[] data, Class<?> type) throws Exception {
+        return reader(type).readValue(data);
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * The writer dedicated to the given type.
+     */
+    public ObjectWriter writer(Class<?> type) {
+        ObjectWriter answer = writers.get(type);
+        if (answer == null) {
+            answer = writers.computeIfAbsent(type, mapper::writerFor);
+        }
+
+        return answer;
+    }
+
+    /**
+     * The reader dedicated to the given type.
+     */
+    public ObjectReader reader(Class<?> type) {
+        ObjectReader answer = readers.get(type);
+        if (answer == null) {
+            answer = readers.computeIfAbsent(type, mapper::readerFor);
+        }
+
+        return answer;
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    /**
+     * Create a codec encoding to CBOR, requires jackson-dataformat-cbor.
+     */
+    public static KnativeJacksonCodec cbor(ClassResolver resolver) {
+        return new KnativeJacksonCodec(mapper(resolver, CBOR_FACTORY), MIME_CBOR);
+    }
+
+    /**
+     * Create a codec encoding to Smile, requires jackson-dataformat-smile.
+     */
+    public static KnativeJacksonCodec smile(ClassResolver resolver) {
+        return new KnativeJacksonCodec(mapper(resolver, SMILE_FACTORY), MIME_SMILE);
+    }
+
+    private static ObjectMapper mapper(ClassResolver resolver, String factoryType) {
+        final Class<?> type = resolver.resolveClass(factoryType);
+        if (type == null || !JsonFactory.class.isAssignableFrom(type)) {
+            throw new IllegalStateException("Unable to find the jackson dataformat factory " + factoryType + ", is the dataformat on the classpath?");
+        }
+
+        try {
+            return new ObjectMapper((JsonFactory)type.getDeclaredConstructor().newInstance()).registerModule(new Jdk8Module());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create the jackson dataformat factory " + factoryType, e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the latency of the most recent exchanges sent to a sink so a percentile of it can
+ * be used as the delay after which an exchange is hedged.
+ *
+ * The samples are kept in a ring and the percentile is recomputed every time a fraction of
+ * the ring has been overwritten, so reading it does not cost more than a volatile read.
+ * Concurrent updates may overwrite each other, which only makes the sample a bit smaller.
+ */
+final class KnativeLatencyTracker {
+    private static final int SIZE = 1024;
+    private static final int REFRESH = SIZE / 8;
+
+    private final double percentile;
+    private final long[] samples;
+    private final AtomicLong count;
+
+    private volatile long value;
+
+    /**
+     * @param percentile the percentile to track, between 0 and 100
+     */
+    KnativeLatencyTracker(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100, got " + percentile);
+        }
+
+        this.percentile = percentile;
+        this.samples = new long[SIZE];
+        this.count = new AtomicLong();
+        this.value = -1;
+    }
+
+    /**
+     * Record the latency of an exchange.
+     *
+     * @param latency the latency in nanos
+     */
+    void record(long latency) {
+        final long index = count.getAndIncrement();
+
+        samples[(int)(index % SIZE)] = latency;
+
+        // refresh once there are enough samples for the value to be meaningful
+        if ((index + 1) % REFRESH == 0) {
+            refresh(Math.min(index + 1, SIZE));
+        }
+    }
+
+    /**
+     * @return the tracked percentile of the latency in nanos, or -1 if not enough exchanges
+     *         have been sent yet
+     */
+    long get() {
+        return value;
+    }
+
+    private void refresh(long size) {
+        final long[] sorted = Arrays.copyOf(samples, (int)size);
+
+        Arrays.sort(sorted);
+
+        final long rank = (long)Math.ceil(percentile / 100 * size) - 1;
+
+        value = sorted[(int)Math.max(0, Math.min(size - 1, rank))];
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+/**
+ * Serializes the body of the messages sent by knative producers and deserializes the data
+ * of the events received by knative consumers.
+ *
+ * Codecs are shared by all the exchanges of an endpoint, thus implementations must be
+ * thread safe.
+ */
+public interface KnativePayloadCodec {
+    /**
+     * The content type of the encoded data, used as the event datacontenttype by producers
+     * and to select the events to decode by consumers.
+     */
+    String getContentType();
+
+    /**
+     * Encode the body of a message.
+     *
+     * @param value the body, never null
+     * @return the encoded data
+     */
+    byte[] encode(Object value) throws Exception;
+
+    /**
+     * Decode the data of an event.
+     *
+     * @param data the encoded data
+     * @param type the type to bind the data to, Object to get the natural mapping of the
+     *             format, like maps and lists for JSON
+     * @return the decoded value
+     */
+    Object decode(byte[] data, Class<?> type) throws Exception;
+}
@@ -18,29 +18,56 @@ package org.apache.camel.component.knative;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.AsyncProcessor;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.k.adapter.DefaultAsyncProducer;
 import org.apache.camel.k.adapter.Processors;
 import org.apache.camel.k.adapter.Services;
 import org.apache.camel.processor.Pipeline;
 import org.apache.commons.collections4.CollectionUtils;
 
+@ManagedResource(description = "Managed KnativeProducer")
 public class KnativeProducer extends DefaultAsyncProducer {
     final AsyncProcessor processor;
+    final KnativeConnectionGate gate;
+    final KnativeBatchProcessor batcher;
+
+    private ScheduledExecutorService scheduler;
 
     public KnativeProducer(Endpoint endpoint, Processor processor, Processor... processors) {
+        this(endpoint, null, processor, processors);
+    }
+
+    KnativeProducer(Endpoint endpoint, KnativeConnectionGate gate, Processor processor, Processor... processors) {
+        this(endpoint, gate, null, processor, processors);
+    }
+
+    /**
+     * When a batcher is given, it ends the pipeline and applies the gate to the batches it
+     * sends rather than to each exchange.
+     */
+    KnativeProducer(Endpoint endpoint, KnativeConnectionGate gate, KnativeBatchProcessor batcher, Processor processor, Processor... processors) {
         super(endpoint);
 
-        List<Processor> elements = new ArrayList<>(1 + processors.length);
+        this.gate = gate;
+        this.batcher = batcher;
+
+        List<Processor> elements = new ArrayList<>(2 + processors.length);
 
         CollectionUtils.addAll(elements, processor);
         CollectionUtils.addAll(elements, processors);
 
+        if (batcher != null) {
+            elements.add(batcher);
+        }
+
         Processor pipeline = Pipeline.newInstance(endpoint.getCamelContext(), elements);
 
         this.processor = Processors.convertToAsync(pipeline);
@@ -48,17 +75,34 @@ public class KnativeProducer extends DefaultAsyncProducer {
 
     @Override
     public boolean process(Exchange exchange, AsyncCallback callback) {
+        if (gate != null && batcher == null) {
+            return gate.process(exchange, callback, processor);
+        }
+
         return processor.process(exchange, callback);
     }
 
     @Override
     protected void doStart() throws Exception {
         Services.start(processor);
+
+        if (gate != null) {
+            scheduler = getEndpoint().getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, "KnativeConnectionGate");
+            gate.start(scheduler);
+        }
     }
 
     @Override
     protected void doStop() throws Exception {
-        Services.start(processor);
+        if (gate != null) {
+            gate.stop();
+        }
+        if (scheduler != null) {
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownNow(scheduler);
+            scheduler = null;
+        }
+
+        Services.stop(processor);
     }
 
     @Override
@@ -76,4 +120,65 @@ public class KnativeProducer extends DefaultAsyncProducer {
         Services.shutdown(processor);
     }
 
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    @ManagedAttribute(description = "The maximum number of connections to the sink, -1 if unbounded")
+    public int getPoolMaxConnections() {
+        return gate != null ? gate.getMaxConnections() : -1;
+    }
+
+    @ManagedAttribute(description = "The number of connections to the sink in use")
+    public int getPoolActiveConnections() {
+        return gate != null ? gate.getActiveConnections() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges waiting for a connection to the sink")
+    public int getPoolPendingAcquires() {
+        return gate != null ? gate.getPendingAcquires() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges that got a connection to the sink")
+    public long getPoolAcquired() {
+        return gate != null ? gate.getAcquired() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges that timed out waiting for a connection to the sink")
+    public long getPoolAcquireTimeouts() {
+        return gate != null ? gate.getAcquireTimeouts() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of exchanges rejected because too many exchanges were waiting for a connection to the sink")
+    public long getPoolAcquireRejections() {
+        return gate != null ? gate.getAcquireRejections() : 0;
+    }
+
+    @ManagedAttribute(description = "The mean time in millis exchanges waited for a connection to the sink")
+    public long getPoolMeanAcquireWaitTime() {
+        return gate != null ? gate.getMeanAcquireWaitTime() : 0;
+    }
+
+    @ManagedAttribute(description = "The maximum time in millis an exchange waited for a connection to the sink")
+    public long getPoolMaxAcquireWaitTime() {
+        return gate != null ? gate.getMaxAcquireWaitTime() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of batches of events sent to the sink")
+    public long getBatches() {
+        return batcher != null ? batcher.getBatches() : 0;
+    }
+
+    @ManagedAttribute(description = "The mean number of events in the batches sent to the sink")
+    public long getMeanBatchSize() {
+        return batcher != null ? batcher.getMeanBatchSize() : 0;
+    }
+
+    @ManagedAttribute(description = "The number of events waiting for their batch to be sent")
+    public int getBatchPendingExchanges() {
+        return batcher != null ? batcher.getPendingExchanges() : 0;
+    }
+
 }
@@ -0,0 +1,274 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.component.knative.ce.CloudEventsProcessors;
+import org.apache.camel.k.adapter.Processors;
+import org.apache.camel.k.adapter.ServiceSupport;
+import org.apache.camel.k.adapter.Services;
+import org.apache.camel.processor.Pipeline;
+
+/**
+ * Splits the application/cloudevents-batch+json requests received by a knative consumer
+ * into an exchange per event, the other requests go through the cloud events processor
+ * as usual.
+ *
+ * The batch is read in a single pass and the events are processed by the route in order,
+ * at most parallelism of them at a time. The request is answered once all the events have
+ * been processed: with the failure of the first event that failed or got a 5xx, so the
+ * sender retries the whole batch, or with an empty 200 otherwise.
+ */
+final class KnativeSplitProcessor extends ServiceSupport implements AsyncProcessor {
+    private final CamelContext context;
+    private final CloudEventsProcessors ce;
+    private final String name;
+    private final int parallelism;
+    private final AsyncProcessor single;
+    private final AsyncProcessor events;
+    private final LongAdder batches;
+    private final LongAdder batched;
+
+    private ExecutorService executor;
+
+    /**
+     * @param context the camel context
+     * @param ce the cloud events processors of the consumer
+     * @param name the name of the threads processing the events of a batch concurrently
+     * @param parallelism the max number of events of a batch processed at a time
+     * @param ceProcessor binds the attributes of the events that are not batched
+     * @param processor processes the events once their attributes are bound
+     */
+    KnativeSplitProcessor(CamelContext context, CloudEventsProcessors ce, String name, int parallelism, Processor ceProcessor, Processor processor) {
+        this.context = context;
+        this.ce = ce;
+        this.name = name;
+        this.parallelism = parallelism;
+        this.single = Processors.convertToAsync(Pipeline.newInstance(context, ceProcessor, processor));
+        this.events = Processors.convertToAsync(processor);
+        this.batches = new LongAdder();
+        this.batched = new LongAdder();
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Processors.process(this, exchange);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        if (!KnativeSupport.hasBatchContent(exchange)) {
+            return single.process(exchange, callback);
+        }
+
+        final Batch batch = new Batch(exchange, callback);
+
+        try {
+            ce.readBatch(exchange.getIn(), batch::add);
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        batches.increment();
+        batched.add(batch.events.size());
+
+        if (batch.events.isEmpty()) {
+            batch.complete(true);
+            return true;
+        }
+
+        final int workers = Math.min(parallelism, batch.events.size());
+
+        if (executor == null || workers == 1) {
+            batch.run();
+            return false;
+        }
+
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(batch::run);
+            } catch (RejectedExecutionException e) {
+                // the pool is being shut down, the events are processed by the
+                // workers already started or by this thread
+                batch.run();
+                break;
+            }
+        }
+
+        return false;
+    }
+
+    // ************************
+    //
+    // Lifecycle
+    //
+    // ************************
+
+    @Override
+    protected void doStart() throws Exception {
+        Services.start(single, events);
+
+        if (parallelism > 1) {
+            executor = context.getExecutorServiceManager().newThreadPool(this, name, parallelism, parallelism);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        if (executor != null) {
+            context.getExecutorServiceManager().shutdownGraceful(executor);
+            executor = null;
+        }
+
+        Services.stop(single, events);
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    long getBatches() {
+        return batches.sum();
+    }
+
+    long getBatchedExchanges() {
+        return batched.sum();
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    private final class Batch {
+        final Exchange exchange;
+        final AsyncCallback callback;
+        final List<Exchange> events;
+        final AtomicInteger next;
+        final AtomicInteger remaining;
+        final AtomicReference<Exchange> failure;
+
+        Batch(Exchange exchange, AsyncCallback callback) {
+            this.exchange = exchange;
+            this.callback = callback;
+            this.events = new ArrayList<>();
+            this.next = new AtomicInteger();
+            this.remaining = new AtomicInteger();
+            this.failure = new AtomicReference<>();
+        }
+
+        /*
+         * The event shares the headers of the request except those describing the
+         * batch content.
+         */
+        Message add() {
+            final Exchange event = exchange.copy();
+            final Message message = event.getIn();
+
+            message.setBody(null);
+            message.removeHeader(Exchange.CONTENT_TYPE);
+            message.removeHeader(Exchange.CONTENT_LENGTH);
+
+            events.add(event);
+            remaining.incrementAndGet();
+
+            return message;
+        }
+
+        /*
+         * Process the events until there are none left to pick, returning as soon as an
+         * event continues asynchronously; its completion resumes the loop on the thread
+         * completing it.
+         */
+        void run() {
+            for (;;) {
+                final int index = next.getAndIncrement();
+                if (index >= events.size()) {
+                    return;
+                }
+
+                final Exchange event = events.get(index);
+                final boolean sync = KnativeSplitProcessor.this.events.process(event, doneSync -> {
+                    if (!done(event) && !doneSync) {
+                        run();
+                    }
+                });
+
+                if (!sync) {
+                    return;
+                }
+            }
+        }
+
+        /*
+         * @return true if that was the last event of the batch
+         */
+        private boolean done(Exchange event) {
+            if (isFailed(event)) {
+                failure.compareAndSet(null, event);
+            }
+            if (remaining.decrementAndGet() > 0) {
+                return false;
+            }
+
+            complete(false);
+            return true;
+        }
+
+        void complete(boolean doneSync) {
+            final Exchange failed = failure.get();
+
+            if (failed == null) {
+                exchange.getOut().setHeader(Exchange.HTTP_RESPONSE_CODE, 200);
+            } else if (failed.getException() != null) {
+                exchange.setException(failed.getException());
+            } else {
+                exchange.getOut().copyFrom(failed.getOut());
+                exchange.getOut().setBody(null);
+            }
+
+            callback.done(doneSync);
+        }
+
+        private boolean isFailed(Exchange event) {
+            if (event.getException() != null) {
+                return true;
+            }
+
+            final Integer code = event.hasOut() ? event.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class) : null;
+            return code != null && code >= 500;
+        }
+    }
+}
@@ -18,16 +18,58 @@ package org.apache.camel.component.knative;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 
 import org.apache.camel.Exchange;
+import org.apache.camel.Message;
 
 public final class KnativeSupport {
     private KnativeSupport() {
     }
 
+    /**
+     * Check if the exchange holds a structured-mode event by looking at the prefix of its
+     * content type only, so parameters like the charset are ignored and the content type
+     * does not need to be parsed.
+     */
     public static boolean hasStructuredContent(Exchange exchange) {
-        return Objects.equals(exchange.getIn().getHeader(Exchange.CONTENT_TYPE), Knative.MIME_STRUCTURED_CONTENT_MODE);
+        return hasContentType(exchange, Knative.MIME_STRUCTURED_CONTENT_MODE);
+    }
+
+    /**
+     * Check if the exchange holds a batch of structured-mode events.
+     */
+    public static boolean hasBatchContent(Exchange exchange) {
+        return hasContentType(exchange, Knative.MIME_BATCH_CONTENT_MODE);
+    }
+
+    /**
+     * Check if the content type of the exchange is the given mime type, regardless of its
+     * parameters and case.
+     */
+    public static boolean hasContentType(Exchange exchange, String mimeType) {
+        final Object contentType = exchange.getIn().getHeader(Exchange.CONTENT_TYPE);
+
+        if (contentType instanceof String) {
+            final String value = (String)contentType;
+            final int length = mimeType.length();
+
+            return value.regionMatches(true, 0, mimeType, 0, length)
+                && (value.length() == length || value.charAt(length) == ';' || value.charAt(length) == ' ');
+        }
+
+        return false;
+    }
+
+    /**
+     * Answer the exchange with a 503 and a Retry-After header, used when a consumer is
+     * overloaded and gives up processing an exchange.
+     */
+    public static void serviceUnavailable(Exchange exchange) {
+        final Message answer = exchange.getOut();
+
+        answer.setBody(null);
+        answer.setHeader(Exchange.HTTP_RESPONSE_CODE, 503);
+        answer.setHeader("Retry-After", "1");
     }
 
     public static <K, V> Map<K, V> mergeMaps(Map<K, V> map, Map<K, V>... maps) {
@@ -0,0 +1,554 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Producer;
+import org.apache.camel.component.netty4.http.NettyHttpOperationFailedException;
+import org.apache.camel.k.adapter.Exchanges;
+import org.apache.camel.k.adapter.Processors;
+import org.apache.camel.k.adapter.ServiceSupport;
+import org.apache.camel.k.adapter.Services;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the exchanges of a knative producer to the endpoints the instances of the sink are
+ * currently bound to, so the sink can be moved to other addresses when the environment is
+ * reloaded without restarting the route.
+ *
+ * When the sink has more than an instance, each exchange goes to the instance selected by
+ * the {@link Balancer}, skipping the instances that have been ejected because they failed
+ * too many times in a row. The ejected instances get exchanges again once their ejection
+ * time has elapsed or if all the instances are ejected.
+ *
+ * When hedging is enabled, an exchange that did not get an answer after the hedge delay is
+ * sent again, to another instance if the sink has more than one, and the first answer wins.
+ * Both attempts carry the same event so receivers can detect the duplicate, and the answer
+ * of the slowest one is discarded.
+ *
+ * The producer of an instance that is no more part of the sink is stopped once the exchanges
+ * it was processing are completed.
+ */
+final class KnativeTargetProcessor extends ServiceSupport implements AsyncProcessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KnativeTargetProcessor.class);
+
+    /**
+     * How the instance receiving an exchange is selected.
+     */
+    enum Balancer {
+        /** Each instance in turn. */
+        roundRobin,
+        /** The instance with the fewest exchanges in flight. */
+        leastRequests,
+        /** The instance with the lowest average latency weighted by its exchanges in flight. */
+        latency
+    }
+
+    private final Set<KnativeTargetProcessor> registry;
+    private final Balancer balancer;
+    private final int maxFailures;
+    private final long ejectionTime;
+    private final long hedgeDelay;
+    private final KnativeLatencyTracker latencies;
+    private final LongSupplier clock;
+    private final AtomicInteger next;
+    private final AtomicLong ejections;
+    private final AtomicLong hedges;
+    private final AtomicLong hedgeWins;
+
+    private volatile Target[] targets;
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * @param endpoints the endpoints the instances of the sink are bound to
+     * @param registry where the processor registers itself while started so it can be
+     *                 moved to other endpoints
+     * @param balancer how the instance receiving an exchange is selected
+     * @param maxFailures the number of consecutive failures after which an instance is
+     *                    ejected, 0 to never eject instances
+     * @param ejectionTime the time in millis an instance is ejected for
+     * @param hedgeDelay the time in millis after which an exchange is hedged, 0 to disable
+     *                   hedging
+     * @param hedgePercentile the percentile of the observed latency used as hedge delay
+     *                        when greater than hedgeDelay, 0 to always use hedgeDelay
+     */
+    KnativeTargetProcessor(
+            List<Endpoint> endpoints, Set<KnativeTargetProcessor> registry, Balancer balancer, int maxFailures, long ejectionTime,
+            long hedgeDelay, double hedgePercentile) throws Exception {
+
+        this(endpoints, registry, balancer, maxFailures, ejectionTime, hedgeDelay, hedgePercentile, System::nanoTime);
+    }
+
+    KnativeTargetProcessor(
+            List<Endpoint> endpoints, Set<KnativeTargetProcessor> registry, Balancer balancer, int maxFailures, long ejectionTime,
+            long hedgeDelay, double hedgePercentile, LongSupplier clock) throws Exception {
+
+        this.registry = registry;
+        this.balancer = balancer;
+        this.maxFailures = maxFailures;
+        this.ejectionTime = ejectionTime * 1_000_000L;
+        this.hedgeDelay = hedgeDelay * 1_000_000L;
+        this.latencies = hedgeDelay > 0 && hedgePercentile > 0 ? new KnativeLatencyTracker(hedgePercentile) : null;
+        this.clock = clock;
+        this.next = new AtomicInteger();
+        this.ejections = new AtomicLong();
+        this.hedges = new AtomicLong();
+        this.hedgeWins = new AtomicLong();
+        this.targets = new Target[endpoints.size()];
+
+        for (int i = 0; i < endpoints.size(); i++) {
+            this.targets[i] = new Target(endpoints.get(i));
+        }
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Processors.process(this, exchange);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        if (hedgeDelay > 0) {
+            return new Call(exchange, callback).start();
+        }
+
+        return send(acquire(null), exchange, callback);
+    }
+
+    /**
+     * Send the next exchanges to the given endpoints, the instances bound to an endpoint
+     * that was already in use keep their producer.
+     */
+    synchronized void swap(List<Endpoint> endpoints) throws Exception {
+        final Target[] previous = targets;
+        final Target[] answer = new Target[endpoints.size()];
+
+        for (int i = 0; i < answer.length; i++) {
+            final Endpoint endpoint = endpoints.get(i);
+
+            for (Target target : previous) {
+                if (target.endpoint == endpoint) {
+                    answer[i] = target;
+                    break;
+                }
+            }
+
+            if (answer[i] == null) {
+                answer[i] = new Target(endpoint);
+
+                if (isStarted()) {
+                    Services.start(answer[i].producer);
+                }
+            }
+        }
+
+        targets = answer;
+
+        for (Target target : previous) {
+            if (!contains(answer, target)) {
+                target.retire();
+            }
+        }
+    }
+
+    // ************************
+    //
+    // Lifecycle
+    //
+    // ************************
+
+    @Override
+    protected void doStart() throws Exception {
+        for (Target target : targets) {
+            Services.start(target.producer);
+        }
+
+        if (hedgeDelay > 0) {
+            scheduler = targets[0].endpoint.getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, "KnativeHedge");
+        }
+
+        registry.add(this);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        registry.remove(this);
+
+        if (scheduler != null) {
+            targets[0].endpoint.getCamelContext().getExecutorServiceManager().shutdownNow(scheduler);
+            scheduler = null;
+        }
+
+        for (Target target : targets) {
+            Services.stop(target.producer);
+        }
+    }
+
+    // ************************
+    //
+    // Metrics
+    //
+    // ************************
+
+    int getInstances() {
+        return targets.length;
+    }
+
+    int getEjectedInstances() {
+        final long now = clock.getAsLong();
+
+        int answer = 0;
+        for (Target target : targets) {
+            if (target.isEjected(now)) {
+                answer++;
+            }
+        }
+
+        return answer;
+    }
+
+    long getEjections() {
+        return ejections.get();
+    }
+
+    long getHedges() {
+        return hedges.get();
+    }
+
+    long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    long getHedgeDelay() {
+        return getHedgeDelayNanos() / 1_000_000L;
+    }
+
+    // ************************
+    //
+    // Helpers
+    //
+    // ************************
+
+    /*
+     * Select the instance an exchange is sent to and account for it, the targets may be
+     * swapped between the selection and the increment in which case the exchange goes to
+     * one of the new ones.
+     */
+    private Target acquire(Target exclude) {
+        for (;;) {
+            final Target[] current = targets;
+            final Target target = current.length == 1 ? current[0] : select(current, exclude);
+
+            target.inflight.incrementAndGet();
+
+            if (current == targets) {
+                return target;
+            }
+
+            target.release();
+        }
+    }
+
+    private boolean send(Target target, Exchange exchange, AsyncCallback callback) {
+        final long start = clock.getAsLong();
+
+        return target.processor.process(exchange, doneSync -> {
+            final long now = clock.getAsLong();
+
+            if (latencies != null && !isFailed(exchange)) {
+                latencies.record(now - start);
+            }
+            if (targets.length > 1) {
+                target.onSample(exchange, now, now - start);
+            }
+
+            target.release();
+            callback.done(doneSync);
+        });
+    }
+
+    private long getHedgeDelayNanos() {
+        final long observed = latencies != null ? latencies.get() : -1;
+        return Math.max(hedgeDelay, observed);
+    }
+
+    private Target select(Target[] candidates, Target exclude) {
+        final long now = clock.getAsLong();
+        final int offset = next.getAndIncrement() & Integer.MAX_VALUE;
+
+        int available = 0;
+        for (Target candidate : candidates) {
+            if (candidate != exclude && !candidate.isEjected(now)) {
+                available++;
+            }
+        }
+
+        // all the instances are ejected, none is skipped
+        final boolean panic = available == 0;
+        if (panic) {
+            for (Target candidate : candidates) {
+                if (candidate != exclude) {
+                    available++;
+                }
+            }
+        }
+
+        if (balancer == Balancer.roundRobin) {
+            // the ejected instances are skipped without their turn going to the next
+            // instance, so the load is evenly spread across the remaining ones
+            int index = offset % available;
+
+            for (Target candidate : candidates) {
+                if (candidate != exclude && (panic || !candidate.isEjected(now)) && index-- == 0) {
+                    return candidate;
+                }
+            }
+        }
+
+        Target answer = null;
+        double best = Double.MAX_VALUE;
+
+        for (int i = 0; i < candidates.length; i++) {
+            // starting at a different instance each time spreads the ties
+            final Target candidate = candidates[(offset + i) % candidates.length];
+
+            if (candidate == exclude || (!panic && candidate.isEjected(now))) {
+                continue;
+            }
+
+            final double score = balancer == Balancer.leastRequests
+                ? candidate.inflight.get()
+                : candidate.latency * (candidate.inflight.get() + 1);
+
+            if (score < best) {
+                best = score;
+                answer = candidate;
+            }
+        }
+
+        return answer;
+    }
+
+    private static boolean contains(Target[] targets, Target target) {
+        for (Target candidate : targets) {
+            if (candidate == target) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /*
+     * The exchanges answered with a 5xx and those that did not get an answer at all, like
+     * connection failures and timeouts, count as failures; the 4xx denote a problem with the
+     * exchange rather than with the instance.
+     */
+    private static boolean isFailed(Exchange exchange) {
+        final Exception cause = exchange.getException();
+        final Message message = exchange.hasOut() ? exchange.getOut() : exchange.getIn();
+
+        if (cause == null) {
+            final Integer code = message.getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
+            return code != null && code >= 500;
+        }
+
+        if (cause instanceof NettyHttpOperationFailedException) {
+            return ((NettyHttpOperationFailedException)cause).getStatusCode() >= 500;
+        }
+
+        return true;
+    }
+
+    /*
+     * An exchange sent to the sink with hedging enabled, both attempts work on a copy of the
+     * exchange so the one that loses the race can still be running when the results of the
+     * winner are copied back.
+     */
+    private final class Call implements Runnable {
+        final Exchange exchange;
+        final AsyncCallback callback;
+
+        Target primary;
+        ScheduledFuture<?> timer;
+        int pending;
+        boolean done;
+
+        Call(Exchange exchange, AsyncCallback callback) {
+            this.exchange = exchange;
+            this.callback = callback;
+
+            // streams can only be read once so both attempts send a copy of their bytes,
+            // while buffers are sent as a retained duplicate by the http binding so each
+            // attempt gets its own reference
+            final Object body = exchange.getIn().getBody();
+            if (body instanceof InputStream) {
+                exchange.getIn().setBody(exchange.getIn().getBody(byte[].class));
+            }
+        }
+
+        boolean start() {
+            synchronized (this) {
+                pending = 1;
+                primary = acquire(null);
+            }
+
+            attempt(primary, false);
+
+            final ScheduledExecutorService executor = scheduler;
+
+            synchronized (this) {
+                if (!done && executor != null) {
+                    timer = executor.schedule(this, getHedgeDelayNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public void run() {
+            final Target target;
+
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+
+                pending++;
+                target = acquire(primary);
+            }
+
+            hedges.incrementAndGet();
+            attempt(target, true);
+        }
+
+        private void attempt(Target target, boolean hedge) {
+            final Exchange copy = exchange.copy();
+
+            send(target, copy, doneSync -> complete(copy, hedge));
+        }
+
+        private void complete(Exchange copy, boolean hedge) {
+            synchronized (this) {
+                pending--;
+
+                // a failed attempt does not win while the other one may still succeed
+                if (done || (pending > 0 && isFailed(copy))) {
+                    return;
+                }
+
+                done = true;
+
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+            }
+
+            if (hedge) {
+                hedgeWins.incrementAndGet();
+            }
+
+            Exchanges.copyResults(exchange, copy);
+            callback.done(false);
+        }
+    }
+
+    private final class Target {
+        final Endpoint endpoint;
+        final Producer producer;
+        final AsyncProcessor processor;
+        final AtomicInteger inflight;
+        final AtomicInteger failures;
+        final AtomicBoolean stopped;
+
+        volatile double latency;
+        volatile boolean ejected;
+        volatile long ejectedUntil;
+        volatile boolean retired;
+
+        Target(Endpoint endpoint) throws Exception {
+            this.endpoint = endpoint;
+            this.producer = endpoint.createProducer();
+            this.processor = Processors.convertToAsync(producer);
+            this.inflight = new AtomicInteger();
+            this.failures = new AtomicInteger();
+            this.stopped = new AtomicBoolean();
+        }
+
+        boolean isEjected(long now) {
+            return ejected && ejectedUntil - now > 0;
+        }
+
+        void onSample(Exchange exchange, long now, long rtt) {
+            // exponentially weighted so the latency follows the recent behavior
+            // of the instance, concurrent updates may be lost which is fine
+            latency += (rtt - latency) * 0.3;
+
+            if (!isFailed(exchange)) {
+                failures.set(0);
+            } else if (maxFailures > 0 && failures.incrementAndGet() >= maxFailures) {
+                failures.set(0);
+                ejectedUntil = now + ejectionTime;
+                ejected = true;
+                ejections.incrementAndGet();
+
+                LOGGER.warn("Ejecting {} for {} ms after {} consecutive failures", endpoint.getEndpointUri(), ejectionTime / 1_000_000L, maxFailures);
+            }
+        }
+
+        void release() {
+            if (inflight.decrementAndGet() == 0 && retired) {
+                stop();
+            }
+        }
+
+        void retire() {
+            retired = true;
+
+            if (inflight.get() == 0) {
+                stop();
+            }
+        }
+
+        private void stop() {
+            if (stopped.compareAndSet(false, true)) {
+                try {
+                    Services.stop(producer);
+                } catch (Exception e) {
+                    LOGGER.warn("Error stopping producer {}", producer, e);
+                }
+            }
+        }
+    }
+}
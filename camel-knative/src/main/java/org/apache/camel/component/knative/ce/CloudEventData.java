@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.camel.component.knative.Knative;
+
+/**
+ * The data of a structured-mode event when it is a JSON object or array, kept as the
+ * slice of the request content it has been read from so a route that only forwards the
+ * event never deserializes it.
+ *
+ * The data is materialized to plain java objects only when {@link #getValue()} is invoked,
+ * which is what the Map and List type converters do.
+ */
+public final class CloudEventData {
+    private final byte[] buffer;
+    private final int offset;
+    private final int length;
+
+    private Object value;
+
+    public CloudEventData(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * The size in bytes of the JSON representation of the data.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * A copy of the JSON representation of the data.
+     */
+    public byte[] getBytes() {
+        return Arrays.copyOfRange(buffer, offset, offset + length);
+    }
+
+    /**
+     * A stream over the JSON representation of the data, the content is not copied.
+     */
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(buffer, offset, length);
+    }
+
+    /**
+     * Write the JSON representation of the data to the given stream, the content is not copied.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, offset, length);
+    }
+
+    /**
+     * The data deserialized to maps, lists and scalars, computed on first access.
+     */
+    public synchronized Object getValue() throws IOException {
+        if (value == null) {
+            value = Knative.MAPPER.readValue(buffer, offset, length, Object.class);
+        }
+
+        return value;
+    }
+
+    /**
+     * Bind the JSON representation of the data with the given reader, the content is not copied.
+     */
+    public <T> T readValue(ObjectReader reader) throws IOException {
+        return reader.readValue(buffer, offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, offset, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.camel.Converter;
+
+/**
+ * Converters for the data of structured-mode events, only the Map and List ones
+ * deserialize it.
+ */
+@Converter
+public final class CloudEventsConverter {
+    private CloudEventsConverter() {
+    }
+
+    @Converter
+    public static InputStream toInputStream(CloudEventData data) {
+        return data.getInputStream();
+    }
+
+    @Converter
+    public static byte[] toByteArray(CloudEventData data) {
+        return data.getBytes();
+    }
+
+    @Converter
+    public static String toString(CloudEventData data) {
+        return data.toString();
+    }
+
+    @Converter
+    public static Map<?, ?> toMap(CloudEventData data) throws IOException {
+        final Object value = data.getValue();
+        return value instanceof Map ? (Map<?, ?>)value : null;
+    }
+
+    @Converter
+    public static List<?> toList(CloudEventData data) throws IOException {
+        final Object value = data.getValue();
+        return value instanceof List ? (List<?>)value : null;
+    }
+}
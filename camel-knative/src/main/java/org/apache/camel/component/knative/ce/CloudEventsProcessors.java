@@ -16,23 +16,37 @@
  */
 package org.apache.camel.component.knative.ce;
 
+import java.io.IOException;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.apache.camel.component.knative.KnativeEndpoint;
 
 public enum CloudEventsProcessors {
-    v01("0.1", V01.PRODUCER, V01.CONSUMER),
-    v02("0.2", V02.PRODUCER, V02.CONSUMER);
+    v01("0.1", V01.PRODUCER, V01.STRUCTURED_PRODUCER, V01.CONSUMER, V01.READER),
+    v02("0.2", V02.PRODUCER, V02.STRUCTURED_PRODUCER, V02.CONSUMER, V02.READER),
+    v10("1.0", V10.PRODUCER, V10.STRUCTURED_PRODUCER, V10.CONSUMER, V10.READER);
 
     private final String version;
     private final Function<KnativeEndpoint, Processor> producer;
+    private final Function<KnativeEndpoint, Processor> structuredProducer;
     private final Function<KnativeEndpoint, Processor> consumer;
+    private final CloudEventsStructuredReader reader;
+
+    CloudEventsProcessors(
+            String version,
+            Function<KnativeEndpoint, Processor> producer,
+            Function<KnativeEndpoint, Processor> structuredProducer,
+            Function<KnativeEndpoint, Processor> consumer,
+            CloudEventsStructuredReader reader) {
 
-    CloudEventsProcessors(String version, Function<KnativeEndpoint, Processor> producer, Function<KnativeEndpoint, Processor> consumer) {
         this.version = version;
         this.producer = producer;
+        this.structuredProducer = structuredProducer;
         this.consumer = consumer;
+        this.reader = reader;
     }
 
     public String getVersion() {
@@ -43,10 +57,31 @@ public enum CloudEventsProcessors {
         return this.producer.apply(endpoint);
     }
 
+    /**
+     * The processor turning the attributes set by {@link #producerProcessor(KnativeEndpoint)}
+     * and the body of the message into a structured-mode event.
+     */
+    public Processor structuredProducerProcessor(KnativeEndpoint endpoint) {
+        return this.structuredProducer.apply(endpoint);
+    }
+
     public Processor consumerProcessor(KnativeEndpoint endpoint) {
         return this.consumer.apply(endpoint);
     }
 
+    /**
+     * Read the structured events of a batch in a single pass, binding each of them to a
+     * message of its own the same way {@link #consumerProcessor(KnativeEndpoint)} binds a
+     * single structured event.
+     *
+     * @param message the message holding the batch
+     * @param events supplies the message each event is bound to, in order
+     * @return the number of events in the batch
+     */
+    public int readBatch(Message message, Supplier<Message> events) throws IOException {
+        return this.reader.readBatch(message, events);
+    }
+
     // **************************
     //
     // Helpers
@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.component.knative.Knative;
+
+import static org.apache.camel.util.ObjectHelper.ifNotEmpty;
+
+/**
+ * Reads a structured-mode event token by token, mapping its attributes straight onto
+ * the message headers instead of building the whole event as a map first.
+ *
+ * The data becomes the message body: as a string when it is a JSON string, as a
+ * {@link CloudEventData} slice of the content when it is a JSON object or array, as a
+ * byte array when it is base64 encoded and as the plain java value otherwise.
+ *
+ * The events of a batch are read the same way from a single pass over the array, their
+ * data slices sharing the content of the batch.
+ */
+final class CloudEventsStructuredReader {
+    private final String contentTypeAttribute;
+    private final Function<String, String> headerName;
+
+    /**
+     * @param contentTypeAttribute the name of the attribute holding the content type of the data
+     * @param headerName computes the name of the header an attribute is mapped to
+     */
+    CloudEventsStructuredReader(String contentTypeAttribute, Function<String, String> headerName) {
+        this.contentTypeAttribute = contentTypeAttribute;
+        this.headerName = headerName;
+    }
+
+    /**
+     * @param message the message holding the event
+     */
+    void read(Message message) throws IOException {
+        final byte[] content = message.getBody(byte[].class);
+        if (content == null) {
+            return;
+        }
+
+        try (JsonParser parser = Knative.MAPPER.getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Structured event must be a JSON object, found: " + parser.getCurrentToken());
+            }
+
+            read(parser, content, message);
+        }
+    }
+
+    /**
+     * @param message the message holding the batch
+     * @param events supplies the message each event of the batch is bound to, in order
+     * @return the number of events in the batch
+     */
+    int readBatch(Message message, Supplier<Message> events) throws IOException {
+        final byte[] content = message.getBody(byte[].class);
+        if (content == null) {
+            return 0;
+        }
+
+        try (JsonParser parser = Knative.MAPPER.getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Batch of structured events must be a JSON array, found: " + parser.getCurrentToken());
+            }
+
+            int answer = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                read(parser, content, events.get());
+                answer++;
+            }
+
+            if (parser.getCurrentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Structured event must be a JSON object, found: " + parser.getCurrentToken());
+            }
+
+            return answer;
+        }
+    }
+
+    // **************************
+    //
+    // Helpers
+    //
+    // **************************
+
+    private void read(JsonParser parser, byte[] content, Message message) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+
+            if (contentTypeAttribute.equals(name)) {
+                ifNotEmpty(value(parser, token), val -> message.setHeader(Exchange.CONTENT_TYPE, val));
+                continue;
+            }
+
+            switch (name) {
+            case "data":
+                ifNotEmpty(data(parser, token, content), message::setBody);
+                break;
+            case "data_base64":
+                // binary data of a 1.0 event
+                if (token == JsonToken.VALUE_STRING) {
+                    message.setBody(parser.getBinaryValue());
+                }
+                break;
+            case "extensions":
+                // map extensions to standard camel headers
+                if (token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String extension = parser.getCurrentName();
+                        message.setHeader(extension, value(parser, parser.nextToken()));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+                break;
+            default:
+                message.setHeader(headerName.apply(name), value(parser, token));
+                break;
+            }
+        }
+    }
+
+    private static Object value(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NULL:
+            return null;
+        case VALUE_TRUE:
+        case VALUE_FALSE:
+            return parser.getBooleanValue();
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+            return parser.getNumberValue();
+        default:
+            return Knative.MAPPER.readValue(parser, Object.class);
+        }
+    }
+
+    private static Object data(JsonParser parser, JsonToken token, byte[] content) throws IOException {
+        if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+            return value(parser, token);
+        }
+
+        final int begin = (int)parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        final int end = (int)parser.getCurrentLocation().getByteOffset();
+
+        return new CloudEventData(content, begin, end - begin);
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.component.knative.Knative;
+import org.apache.camel.spi.Synchronization;
+
+/**
+ * Turns the message into a structured-mode event: the ce-* headers set by the producer
+ * processor become the attributes of the event, the body becomes its data and the whole
+ * envelope is generated straight into a pooled netty buffer owned by the exchange, which
+ * the http binding sends without copying it.
+ *
+ * The data is written as the JSON string or value it is, unless it is binary content which
+ * is base64 encoded. The data of an event received in structured mode is copied verbatim
+ * from the buffer it has been read from.
+ */
+final class CloudEventsStructuredWriter implements Processor {
+    private static final String HEADER_PREFIX = "ce-";
+
+    private final String contentTypeAttribute;
+    private final String binaryDataAttribute;
+    private final Function<String, String> attributeName;
+
+    /**
+     * @param contentTypeAttribute the name of the attribute holding the content type of the data
+     * @param binaryDataAttribute the name of the attribute holding base64 encoded data
+     * @param attributeName computes the name of an attribute from the name of the header it is mapped to
+     */
+    CloudEventsStructuredWriter(String contentTypeAttribute, String binaryDataAttribute, Function<String, String> attributeName) {
+        this.contentTypeAttribute = contentTypeAttribute;
+        this.binaryDataAttribute = binaryDataAttribute;
+        this.attributeName = attributeName;
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        final Message message = exchange.getIn();
+        final ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer();
+
+        try {
+            write(message, new ByteBufOutputStream(buffer));
+        } catch (Exception e) {
+            buffer.release();
+            throw e;
+        }
+
+        message.setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+        message.setBody(buffer);
+
+        // the http binding sends a retained duplicate of the buffer, so redeliveries
+        // and hedged requests each get their own reference, and the exchange releases
+        // its own once done
+        exchange.addOnCompletion(new ReleaseOnCompletion(buffer));
+    }
+
+    // **************************
+    //
+    // Helpers
+    //
+    // **************************
+
+    private void write(Message message, OutputStream out) throws IOException {
+        try (JsonGenerator generator = Knative.MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+
+            final Iterator<Map.Entry<String, Object>> headers = message.getHeaders().entrySet().iterator();
+            while (headers.hasNext()) {
+                final Map.Entry<String, Object> header = headers.next();
+                final String name = header.getKey();
+
+                if (name.length() > HEADER_PREFIX.length() && name.regionMatches(true, 0, HEADER_PREFIX, 0, HEADER_PREFIX.length())) {
+                    if (header.getValue() != null) {
+                        generator.writeFieldName(attributeName.apply(name.substring(HEADER_PREFIX.length())));
+                        generator.writeObject(header.getValue());
+                    }
+
+                    // the attributes are carried by the envelope
+                    headers.remove();
+                }
+            }
+
+            final Object contentType = message.getHeader(Exchange.CONTENT_TYPE);
+            if (contentType != null) {
+                generator.writeStringField(contentTypeAttribute, contentType.toString());
+            }
+
+            writeData(message, generator, out);
+
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeData(Message message, JsonGenerator generator, OutputStream out) throws IOException {
+        final Object body = message.getBody();
+
+        if (body == null) {
+            return;
+        }
+
+        if (body instanceof CloudEventData) {
+            //
+            // let the generator write the separator and account for the value,
+            // then append the data to the output without going through it
+            //
+            generator.writeFieldName("data");
+            generator.writeRawValue("");
+            generator.flush();
+
+            ((CloudEventData)body).writeTo(out);
+        } else if (body instanceof String) {
+            generator.writeStringField("data", (String)body);
+        } else if (body instanceof byte[] || body instanceof ByteBuf || body instanceof ByteBuffer || body instanceof InputStream) {
+            final byte[] data = message.getBody(byte[].class);
+
+            generator.writeFieldName(binaryDataAttribute);
+            generator.writeBinary(data);
+        } else {
+            generator.writeFieldName("data");
+            generator.writeObject(body);
+        }
+    }
+
+    private static final class ReleaseOnCompletion implements Synchronization {
+        private final ByteBuf buffer;
+
+        ReleaseOnCompletion(ByteBuf buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void onComplete(Exchange exchange) {
+            release();
+        }
+
+        @Override
+        public void onFailure(Exchange exchange) {
+            release();
+        }
+
+        private void release() {
+            buffer.release();
+        }
+    }
+}
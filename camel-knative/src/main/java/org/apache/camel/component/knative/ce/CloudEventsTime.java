@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats the time of an event as an RFC 3339 UTC timestamp with millis precision, like
+ * {@code 2019-04-23T10:15:30.123Z}.
+ *
+ * The events produced within the same second share the date and time part of the
+ * timestamp, so it is computed once per second and only the millis are formatted for
+ * each event.
+ */
+public final class CloudEventsTime {
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private static volatile Prefix prefix = new Prefix(Long.MIN_VALUE, null);
+
+    private CloudEventsTime() {
+    }
+
+    public static String format(long epochMillis) {
+        final long second = Math.floorDiv(epochMillis, 1000L);
+        final int millis = (int)Math.floorMod(epochMillis, 1000L);
+
+        Prefix current = prefix;
+        if (current.second != second) {
+            current = new Prefix(second, SECONDS.format(Instant.ofEpochSecond(second)));
+            prefix = current;
+        }
+
+        final char[] chars = current.chars;
+        final int length = chars.length;
+        final char[] answer = new char[length + 5];
+
+        System.arraycopy(chars, 0, answer, 0, length);
+        answer[length] = '.';
+        answer[length + 1] = (char)('0' + millis / 100);
+        answer[length + 2] = (char)('0' + millis / 10 % 10);
+        answer[length + 3] = (char)('0' + millis % 10);
+        answer[length + 4] = 'Z';
+
+        return new String(answer);
+    }
+
+    private static final class Prefix {
+        final long second;
+        final char[] chars;
+
+        Prefix(long second, String value) {
+            this.second = second;
+            this.chars = value != null ? value.toCharArray() : new char[0];
+        }
+    }
+}
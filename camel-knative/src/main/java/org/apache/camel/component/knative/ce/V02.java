@@ -16,15 +16,10 @@
  */
 package org.apache.camel.component.knative.ce;
 
-import java.io.InputStream;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Map;
 import java.util.function.Function;
 
 import org.apache.camel.Exchange;
-import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.apache.camel.component.knative.Knative;
 import org.apache.camel.component.knative.KnativeEndpoint;
@@ -32,35 +27,50 @@ import org.apache.camel.component.knative.KnativeEnvironment;
 import org.apache.camel.component.knative.KnativeSupport;
 import org.apache.commons.lang3.StringUtils;
 
-import static org.apache.camel.util.ObjectHelper.ifNotEmpty;
-
 final class V02 {
+    static final CloudEventsStructuredReader READER = new CloudEventsStructuredReader(
+        "contentType",
+        key -> "ce-" + StringUtils.lowerCase(key));
+
+    private static final CloudEventsStructuredWriter WRITER = new CloudEventsStructuredWriter(
+        "contentType",
+        "data",
+        StringUtils::lowerCase);
+
     private V02() {
     }
 
     public static final Function<KnativeEndpoint, Processor> PRODUCER = (KnativeEndpoint endpoint) -> {
-        KnativeEnvironment.KnativeServiceDefinition service = endpoint.getService();
-        String uri = endpoint.getEndpointUri();
+        // the attributes that do not depend on the exchange are computed once per endpoint
+        final KnativeEnvironment.KnativeServiceDefinition service = endpoint.getService();
+        final String eventType = service.getMetadata().get(Knative.KNATIVE_EVENT_TYPE);
+        final String contentType = service.getMetadata().get(Knative.CONTENT_TYPE);
+        final String source = endpoint.getEndpointUri();
 
         return exchange -> {
-            final String eventType = service.getMetadata().get(Knative.KNATIVE_EVENT_TYPE);
-            final String contentType = service.getMetadata().get(Knative.CONTENT_TYPE);
-            final ZonedDateTime created = exchange.getCreated().toInstant().atZone(ZoneId.systemDefault());
-            final String eventTime = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(created);
             final Map<String, Object> headers = exchange.getIn().getHeaders();
 
             headers.putIfAbsent("ce-specversion", "0.2");
             headers.putIfAbsent("ce-type", eventType);
-            headers.putIfAbsent("ce-id", exchange.getExchangeId());
-            headers.putIfAbsent("ce-time", eventTime);
-            headers.putIfAbsent("ce-source", uri);
+            headers.putIfAbsent("ce-source", source);
             headers.putIfAbsent(Exchange.CONTENT_TYPE, contentType);
 
+            if (headers.get("ce-id") == null) {
+                headers.put("ce-id", exchange.getExchangeId());
+            }
+            if (headers.get("ce-time") == null) {
+                headers.put("ce-time", CloudEventsTime.format(exchange.getCreated().getTime()));
+            }
+
             // Always remove host so it's always computed from the URL and not inherited from the exchange
             headers.remove("Host");
         };
     };
 
+    public static final Function<KnativeEndpoint, Processor> STRUCTURED_PRODUCER = (KnativeEndpoint endpoint) -> {
+        return WRITER;
+    };
+
     public static final Function<KnativeEndpoint, Processor> CONSUMER = (KnativeEndpoint endpoint) -> {
         return exchange -> {
             if (!KnativeSupport.hasStructuredContent(exchange)) {
@@ -77,26 +87,7 @@ final class V02 {
                 return;
             }
 
-            try (InputStream is = exchange.getIn().getBody(InputStream.class)) {
-                final Message message = exchange.getIn();
-                final Map<String, Object> ce = Knative.MAPPER.readValue(is, Map.class);
-
-                ifNotEmpty(ce.remove("contentType"), val -> message.setHeader(Exchange.CONTENT_TYPE, val));
-                ifNotEmpty(ce.remove("data"), val -> message.setBody(val));
-
-                //
-                // Map extensions to standard camel headers
-                //
-                ifNotEmpty(ce.remove("extensions"), val -> {
-                    if (val instanceof Map) {
-                        ((Map<String, Object>) val).forEach(message::setHeader);
-                    }
-                });
-
-                ce.forEach((key, val) -> {
-                    message.setHeader("ce-" + StringUtils.lowerCase(key), val);
-                });
-            }
+            READER.read(exchange.getIn());
         };
     };
 }
@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative.ce;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.component.knative.Knative;
+import org.apache.camel.component.knative.KnativeEndpoint;
+import org.apache.camel.component.knative.KnativeEnvironment;
+import org.apache.camel.component.knative.KnativeSupport;
+import org.apache.commons.lang3.StringUtils;
+
+final class V10 {
+    // attribute names are lower case in 1.0 events, extensions included
+    static final CloudEventsStructuredReader READER = new CloudEventsStructuredReader(
+        "datacontenttype",
+        key -> "ce-" + key);
+
+    private static final CloudEventsStructuredWriter WRITER = new CloudEventsStructuredWriter(
+        "datacontenttype",
+        "data_base64",
+        StringUtils::lowerCase);
+
+    private V10() {
+    }
+
+    public static final Function<KnativeEndpoint, Processor> PRODUCER = (KnativeEndpoint endpoint) -> {
+        // the attributes that do not depend on the exchange are computed once per endpoint
+        final KnativeEnvironment.KnativeServiceDefinition service = endpoint.getService();
+        final String eventType = service.getMetadata().get(Knative.KNATIVE_EVENT_TYPE);
+        final String contentType = service.getMetadata().get(Knative.CONTENT_TYPE);
+        final String source = endpoint.getEndpointUri();
+
+        return exchange -> {
+            final Map<String, Object> headers = exchange.getIn().getHeaders();
+
+            headers.putIfAbsent("ce-specversion", "1.0");
+            headers.putIfAbsent("ce-type", eventType);
+            headers.putIfAbsent("ce-source", source);
+            headers.putIfAbsent(Exchange.CONTENT_TYPE, contentType);
+
+            if (headers.get("ce-id") == null) {
+                headers.put("ce-id", exchange.getExchangeId());
+            }
+            if (headers.get("ce-time") == null) {
+                headers.put("ce-time", CloudEventsTime.format(exchange.getCreated().getTime()));
+            }
+
+            // Always remove host so it's always computed from the URL and not inherited from the exchange
+            headers.remove("Host");
+        };
+    };
+
+    public static final Function<KnativeEndpoint, Processor> STRUCTURED_PRODUCER = (KnativeEndpoint endpoint) -> {
+        return WRITER;
+    };
+
+    public static final Function<KnativeEndpoint, Processor> CONSUMER = (KnativeEndpoint endpoint) -> {
+        return exchange -> {
+            if (!KnativeSupport.hasStructuredContent(exchange)) {
+                //
+                // The event is in binary mode: the attributes are already bound
+                // to the ce-* headers by the http binding and the body is the
+                // data, so neither is touched.
+                //
+                // More info:
+                //
+                //   https://github.com/cloudevents/spec/blob/v1.0/http-protocol-binding.md#31-binary-content-mode
+                //
+                return;
+            }
+
+            READER.read(exchange.getIn());
+        };
+    };
+}
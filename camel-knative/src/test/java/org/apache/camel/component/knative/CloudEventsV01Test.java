@@ -19,7 +19,9 @@ package org.apache.camel.component.knative;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.Message;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.knative.ce.CloudEventData;
 import org.apache.camel.component.knative.ce.CloudEventsProcessors;
 import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.impl.DefaultCamelContext;
@@ -31,6 +33,10 @@ import org.junit.jupiter.api.Test;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 public class CloudEventsV01Test {
 
@@ -178,6 +184,67 @@ public class CloudEventsV01Test {
         mock.assertIsSatisfied();
     }
 
+    @Test
+    void testConsumeStructuredContentWithObjectData() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("netty4-http:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+        mock.expectedHeaderReceived("CE-EventType", "org.apache.camel.event");
+        mock.expectedHeaderReceived("CE-MyAttribute", 42);
+        mock.expectedHeaderReceived("myExtension", "ext");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "application/json");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+                e.getIn().setBody(
+                    "{\"eventType\": \"org.apache.camel.event\", \"myAttribute\": 42, \"contentType\": \"application/json\", "
+                    + "\"data\": {\"a\": [1, {\"b\": \"}\"}], \"c\": null}, \"extensions\": {\"myExtension\": \"ext\"}}");
+            }
+        );
+
+        mock.assertIsSatisfied();
+
+        final Message message = mock.getExchanges().get(0).getIn();
+        assertThat(message.getBody()).isInstanceOf(CloudEventData.class);
+        assertThat(message.getBody(String.class)).isEqualTo("{\"a\": [1, {\"b\": \"}\"}], \"c\": null}");
+        assertThat(message.getBody(Map.class)).containsKeys("a", "c").containsEntry("c", null);
+        assertThat(message.getBody(Map.class).get("a")).isEqualTo(Arrays.asList(1, Collections.singletonMap("b", "}")));
+    }
+
     @Test
     void testConsumeContent() throws Exception {
         final int port = AvailablePortFinder.getNextAvailable();
@@ -19,8 +19,11 @@ package org.apache.camel.component.knative;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.Message;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.knative.ce.CloudEventData;
 import org.apache.camel.component.knative.ce.CloudEventsProcessors;
+import org.apache.camel.component.knative.ce.CloudEventsTime;
 import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.impl.DefaultCamelContext;
 import org.apache.camel.test.AvailablePortFinder;
@@ -28,9 +31,14 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 public class CloudEventsV02Test {
 
@@ -178,6 +186,82 @@ public class CloudEventsV02Test {
         mock.assertIsSatisfied();
     }
 
+    @Test
+    void testConsumeStructuredContentWithObjectData() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v02.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("netty4-http:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock.expectedHeaderReceived("ce-myattribute", 42);
+        mock.expectedHeaderReceived("myExtension", "ext");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "application/json");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+                e.getIn().setBody(
+                    "{\"type\": \"org.apache.camel.event\", \"myAttribute\": 42, \"contentType\": \"application/json\", "
+                    + "\"data\": {\"a\": [1, {\"b\": \"}\"}], \"c\": null}, \"extensions\": {\"myExtension\": \"ext\"}}");
+            }
+        );
+
+        mock.assertIsSatisfied();
+
+        final Message message = mock.getExchanges().get(0).getIn();
+        assertThat(message.getBody()).isInstanceOf(CloudEventData.class);
+        assertThat(message.getBody(String.class)).isEqualTo("{\"a\": [1, {\"b\": \"}\"}], \"c\": null}");
+        assertThat(message.getBody(Map.class)).containsKeys("a", "c").containsEntry("c", null);
+        assertThat(message.getBody(Map.class).get("a")).isEqualTo(Arrays.asList(1, Collections.singletonMap("b", "}")));
+    }
+
+    @Test
+    void testEventTime() {
+        final long time = Instant.parse("2019-04-23T10:15:30.123Z").toEpochMilli();
+
+        assertThat(CloudEventsTime.format(time)).isEqualTo("2019-04-23T10:15:30.123Z");
+        assertThat(CloudEventsTime.format(time + 6)).isEqualTo("2019-04-23T10:15:30.129Z");
+        assertThat(CloudEventsTime.format(time + 877)).isEqualTo("2019-04-23T10:15:31.000Z");
+        assertThat(CloudEventsTime.format(time - 123)).isEqualTo("2019-04-23T10:15:30.000Z");
+        assertThat(CloudEventsTime.format(-1)).isEqualTo("1969-12-31T23:59:59.999Z");
+
+        for (long t = time; t < time + 3000; t += 7) {
+            assertThat(Instant.parse(CloudEventsTime.format(t)).toEpochMilli()).isEqualTo(t);
+        }
+    }
+
     @Test
     void testConsumeContent() throws Exception {
         final int port = AvailablePortFinder.getNextAvailable();
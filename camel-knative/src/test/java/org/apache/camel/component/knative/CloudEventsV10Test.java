@@ -0,0 +1,729 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.knative.ce.CloudEventData;
+import org.apache.camel.component.knative.ce.CloudEventsProcessors;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.test.AvailablePortFinder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CloudEventsV10Test {
+
+    private CamelContext context;
+
+    // **************************
+    //
+    // Setup
+    //
+    // **************************
+
+    @BeforeEach
+    public void before() {
+        this.context = new DefaultCamelContext();
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        if (this.context != null) {
+            this.context.stop();
+        }
+    }
+
+    // **************************
+    //
+    // Tests
+    //
+    // **************************
+    
+    @Test
+    void testInvokeEndpoint() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint");
+
+                fromF("netty4-http:http://localhost:%d/a/path", port)
+                    .to("mock:ce");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+        mock.expectedHeaderReceived("ce-specversion", CloudEventsProcessors.v10.getVersion());
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock.expectedHeaderReceived("ce-source", "knative://endpoint/myEndpoint");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "text/plain");
+        mock.expectedMessagesMatches(e -> e.getIn().getHeaders().containsKey("ce-time"));
+        mock.expectedMessagesMatches(e -> e.getIn().getHeaders().containsKey("ce-id"));
+        mock.expectedBodiesReceived("test");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setBody("test");
+            }
+        );
+
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    void testInvokeEndpointWithStructuredContent() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+        component.getConfiguration().setCloudEventsContentMode("structured");
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint");
+
+                fromF("netty4-http:http://localhost:%d/a/path", port)
+                    .convertBodyTo(String.class)
+                    .to("mock:ce");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(3);
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+        mock.expectedMessagesMatches(e -> !e.getIn().getHeaders().containsKey("ce-type"));
+
+        context.createProducerTemplate().send("direct:source", e -> {
+            e.getIn().setHeader("ce-myextension", "ext");
+            e.getIn().setBody("test");
+        });
+        context.createProducerTemplate().send("direct:source", e -> {
+            e.getIn().setHeader(Exchange.CONTENT_TYPE, "application/json");
+            e.getIn().setBody(Collections.singletonMap("a", Arrays.asList(1, 2)));
+        });
+        context.createProducerTemplate().send("direct:source", e -> {
+            e.getIn().setHeader(Exchange.CONTENT_TYPE, "application/octet-stream");
+            e.getIn().setBody(new byte[] { 0, 1, 2, (byte)0xff });
+        });
+
+        mock.assertIsSatisfied();
+
+        final ObjectMapper mapper = new ObjectMapper();
+
+        Map<String, Object> ce1 = mapper.readValue(mock.getExchanges().get(0).getIn().getBody(String.class), Map.class);
+        assertThat(ce1)
+            .containsEntry("specversion", CloudEventsProcessors.v10.getVersion())
+            .containsEntry("type", "org.apache.camel.event")
+            .containsEntry("source", "knative://endpoint/myEndpoint")
+            .containsEntry("myextension", "ext")
+            .containsEntry("datacontenttype", "text/plain")
+            .containsEntry("data", "test")
+            .containsKeys("id", "time");
+
+        Map<String, Object> ce2 = mapper.readValue(mock.getExchanges().get(1).getIn().getBody(String.class), Map.class);
+        assertThat(ce2)
+            .containsEntry("datacontenttype", "application/json")
+            .containsEntry("data", Collections.singletonMap("a", Arrays.asList(1, 2)));
+
+        Map<String, Object> ce3 = mapper.readValue(mock.getExchanges().get(2).getIn().getBody(String.class), Map.class);
+        assertThat(ce3)
+            .containsEntry("datacontenttype", "application/octet-stream")
+            .containsEntry("data_base64", Base64.getEncoder().encodeToString(new byte[] { 0, 1, 2, (byte)0xff }))
+            .doesNotContainKey("data");
+    }
+
+    @Test
+    void testForwardStructuredContent() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+        component.getConfiguration().setCloudEventsContentMode("structured");
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(2);
+        mock.expectedHeaderReceived("ce-specversion", CloudEventsProcessors.v10.getVersion());
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "application/json");
+
+        // the data of a received structured event is forwarded verbatim
+        final byte[] content = "{\"data\": [{\"a\": 1}, 2]}".getBytes(StandardCharsets.UTF_8);
+        final CloudEventData data = new CloudEventData(content, 9, content.length - 10);
+
+        context.createProducerTemplate().send("direct:source", e -> {
+            e.getIn().setHeader(Exchange.CONTENT_TYPE, "application/json");
+            e.getIn().setBody(Collections.singletonMap("a", 1));
+        });
+        context.createProducerTemplate().send("direct:source", e -> {
+            e.getIn().setHeader(Exchange.CONTENT_TYPE, "application/json");
+            e.getIn().setBody(data);
+        });
+
+        mock.assertIsSatisfied();
+
+        assertThat(mock.getExchanges().get(0).getIn().getBody(Map.class)).containsEntry("a", 1);
+        assertThat(mock.getExchanges().get(1).getIn().getBody(String.class)).isEqualTo("[{\"a\": 1}, 2]");
+    }
+
+    @Test
+    void testConsumeStructuredContent() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("netty4-http:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+        mock.expectedHeaderReceived("ce-specversion", CloudEventsProcessors.v10.getVersion());
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock.expectedHeaderReceived("ce-id", "myEventID");
+        mock.expectedHeaderReceived("ce-source", "/somewhere");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+        mock.expectedMessagesMatches(e -> e.getIn().getHeaders().containsKey("ce-time"));
+        mock.expectedBodiesReceived("test");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+                e.getIn().setBody(new ObjectMapper().writeValueAsString(KnativeSupport.mapOf(
+                    "specversion", CloudEventsProcessors.v10.getVersion(),
+                    "type", "org.apache.camel.event",
+                    "id", "myEventID",
+                    "time", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now()),
+                    "source", "/somewhere",
+                    "data", "test"
+                )));
+            }
+        );
+
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    void testConsumeStructuredContentWithObjectData() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("netty4-http:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock.expectedHeaderReceived("ce-myattribute", 42);
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "application/json");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+                e.getIn().setBody(
+                    "{\"type\": \"org.apache.camel.event\", \"myattribute\": 42, \"datacontenttype\": \"application/json\", "
+                    + "\"data\": {\"a\": [1, {\"b\": \"}\"}], \"c\": null}}");
+            }
+        );
+
+        mock.assertIsSatisfied();
+
+        final Message message = mock.getExchanges().get(0).getIn();
+        assertThat(message.getBody()).isInstanceOf(CloudEventData.class);
+        assertThat(message.getBody(String.class)).isEqualTo("{\"a\": [1, {\"b\": \"}\"}], \"c\": null}");
+        assertThat(message.getBody(Map.class)).containsKeys("a", "c").containsEntry("c", null);
+        assertThat(message.getBody(Map.class).get("a")).isEqualTo(Arrays.asList(1, Collections.singletonMap("b", "}")));
+    }
+
+    @Test
+    void testConsumeContentWithDataType() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint?dataType=" + Payload.class.getName())
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("netty4-http:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(3);
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE);
+                e.getIn().setBody(
+                    "{\"type\": \"org.apache.camel.event\", \"datacontenttype\": \"application/json\", "
+                    + "\"data\": {\"a\": [1, 2], \"c\": \"structured\"}}");
+            }
+        );
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader("ce-type", "org.apache.camel.event");
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, "application/json; charset=UTF-8");
+                e.getIn().setBody("{\"a\": [3], \"c\": \"binary\"}");
+            }
+        );
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader("ce-type", "org.apache.camel.event");
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, "text/plain");
+                e.getIn().setBody("test");
+            }
+        );
+
+        mock.assertIsSatisfied();
+
+        final Payload p1 = mock.getExchanges().get(0).getIn().getBody(Payload.class);
+        assertThat(p1.a).containsExactly(1, 2);
+        assertThat(p1.c).isEqualTo("structured");
+
+        final Payload p2 = mock.getExchanges().get(1).getIn().getBody(Payload.class);
+        assertThat(p2.a).containsExactly(3);
+        assertThat(p2.c).isEqualTo("binary");
+
+        // not the content type of the codec
+        assertThat(mock.getExchanges().get(2).getIn().getBody()).isNotInstanceOf(Payload.class);
+    }
+
+    @Test
+    void testConsumeStructuredContentWithBinaryData() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("netty4-http:http://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+        mock.expectedHeaderReceived("ce-specversion", CloudEventsProcessors.v10.getVersion());
+        mock.expectedHeaderReceived("ce-id", "myEventID");
+        mock.expectedHeaderReceived("ce-myextension", "ext");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "application/octet-stream");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_STRUCTURED_CONTENT_MODE + "; charset=UTF-8");
+                e.getIn().setBody(new ObjectMapper().writeValueAsString(KnativeSupport.mapOf(
+                    "specversion", CloudEventsProcessors.v10.getVersion(),
+                    "type", "org.apache.camel.event",
+                    "id", "myEventID",
+                    "source", "/somewhere",
+                    "myextension", "ext",
+                    "datacontenttype", "application/octet-stream",
+                    "data_base64", Base64.getEncoder().encodeToString(new byte[] { 0, 1, 2, (byte)0xff })
+                )));
+            }
+        );
+
+        mock.assertIsSatisfied();
+
+        assertThat(mock.getExchanges().get(0).getIn().getBody(byte[].class)).containsExactly(0, 1, 2, 0xff);
+    }
+
+    @Test
+    void testStructuredContentType() {
+        assertThat(structured(Knative.MIME_STRUCTURED_CONTENT_MODE)).isTrue();
+        assertThat(structured("Application/CloudEvents+JSON")).isTrue();
+        assertThat(structured(Knative.MIME_STRUCTURED_CONTENT_MODE + "; charset=UTF-8")).isTrue();
+        assertThat(structured(Knative.MIME_STRUCTURED_CONTENT_MODE + "-seq")).isFalse();
+        assertThat(structured("application/cloudevents")).isFalse();
+        assertThat(structured("application/json")).isFalse();
+        assertThat(structured(null)).isFalse();
+    }
+
+    @Test
+    void testConsumeContent() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("http4://localhost:%d/a/path", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+        mock.expectedHeaderReceived("ce-specversion", CloudEventsProcessors.v10.getVersion());
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock.expectedHeaderReceived("ce-id", "myEventID");
+        mock.expectedHeaderReceived("ce-source", "/somewhere");
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "text/plain");
+        mock.expectedMessagesMatches(e -> e.getIn().getHeaders().containsKey("ce-time"));
+        mock.expectedBodiesReceived("test");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader(Exchange.CONTENT_TYPE, "text/plain");
+                e.getIn().setHeader("ce-specversion", CloudEventsProcessors.v10.getVersion());
+                e.getIn().setHeader("ce-type", "org.apache.camel.event");
+                e.getIn().setHeader("ce-id", "myEventID");
+                e.getIn().setHeader("ce-time", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now()));
+                e.getIn().setHeader("ce-source", "/somewhere");
+                e.getIn().setBody("test");
+            }
+        );
+
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    void testConsumeContentWithFilter() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "ep1",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain",
+                    Knative.FILTER_HEADER_NAME, "ce-source",
+                    Knative.FILTER_HEADER_VALUE, "CE1"
+                )),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "ep2",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain",
+                    Knative.FILTER_HEADER_NAME, "ce-source",
+                    Knative.FILTER_HEADER_VALUE, "CE2"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/ep1")
+                    .convertBodyTo(String.class)
+                    .to("log:ce1?showAll=true&multiline=true")
+                    .to("mock:ce1");
+                from("knative:endpoint/ep2")
+                    .convertBodyTo(String.class)
+                    .to("log:ce2?showAll=true&multiline=true")
+                    .to("mock:ce2");
+
+                from("direct:source")
+                    .setBody()
+                        .constant("test")
+                    .setHeader(Exchange.HTTP_METHOD)
+                        .constant("POST")
+                    .setHeader(Exchange.HTTP_QUERY)
+                        .simple("filter.headerName=ce-source&filter.headerValue=${header.FilterVal}")
+                    .toD("http4://localhost:" + port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock1 = context.getEndpoint("mock:ce1", MockEndpoint.class);
+        mock1.expectedMessageCount(1);
+        mock1.expectedMessagesMatches(e -> e.getIn().getHeaders().containsKey("ce-time"));
+        mock1.expectedHeaderReceived("ce-specversion", CloudEventsProcessors.v10.getVersion());
+        mock1.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock1.expectedHeaderReceived("ce-id", "myEventID1");
+        mock1.expectedHeaderReceived("ce-source", "CE1");
+        mock1.expectedBodiesReceived("test");
+
+        MockEndpoint mock2 = context.getEndpoint("mock:ce2", MockEndpoint.class);
+        mock2.expectedMessageCount(1);
+        mock2.expectedMessagesMatches(e -> e.getIn().getHeaders().containsKey("ce-time"));
+        mock2.expectedHeaderReceived("ce-specversion", CloudEventsProcessors.v10.getVersion());
+        mock2.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+        mock2.expectedHeaderReceived("ce-id", "myEventID2");
+        mock2.expectedHeaderReceived("ce-source", "CE2");
+        mock2.expectedBodiesReceived("test");
+
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader("FilterVal", "CE1");
+                e.getIn().setHeader("ce-specversion", CloudEventsProcessors.v10.getVersion());
+                e.getIn().setHeader("ce-type", "org.apache.camel.event");
+                e.getIn().setHeader("ce-id", "myEventID1");
+                e.getIn().setHeader("ce-time", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now()));
+                e.getIn().setHeader("ce-source", "CE1");
+            }
+        );
+        context.createProducerTemplate().send(
+            "direct:source",
+            e -> {
+                e.getIn().setHeader("FilterVal", "CE2");
+                e.getIn().setHeader("ce-specversion", CloudEventsProcessors.v10.getVersion());
+                e.getIn().setHeader("ce-type", "org.apache.camel.event");
+                e.getIn().setHeader("ce-id", "myEventID2");
+                e.getIn().setHeader("ce-time", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now()));
+                e.getIn().setHeader("ce-source", "CE2");
+            }
+        );
+
+        mock1.assertIsSatisfied();
+        mock2.assertIsSatisfied();
+    }
+
+    // **************************
+    //
+    // Helpers
+    //
+    // **************************
+
+    private boolean structured(String contentType) {
+        final Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setHeader(Exchange.CONTENT_TYPE, contentType);
+
+        return KnativeSupport.hasStructuredContent(exchange);
+    }
+
+    public static final class Payload {
+        public List<Integer> a;
+        public String c;
+    }
+}
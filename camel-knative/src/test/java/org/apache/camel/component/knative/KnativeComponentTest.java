@@ -16,9 +16,13 @@
  */
 package org.apache.camel.component.knative;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.camel.AsyncProcessor;
 import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.knative.ce.CloudEventsProcessors;
 import org.apache.camel.component.mock.MockEndpoint;
@@ -30,15 +34,29 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 import static org.apache.camel.component.knative.KnativeEnvironment.mandatoryLoadFromResource;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 public class KnativeComponentTest {
 
@@ -100,6 +118,184 @@ public class KnativeComponentTest {
             .hasMessage("Unable to find the service \"unknown\" with type \"channel\"");
     }
 
+    @Test
+    void testLookupService() {
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "host1",
+                8080,
+                KnativeSupport.mapOf(Knative.SERVICE_META_PATH, "/a/path")),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.https,
+                "myEndpoint",
+                "host2",
+                8443,
+                Collections.emptyMap()),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.channel,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "host3",
+                80,
+                Collections.emptyMap())
+        ));
+
+        // the first definition wins
+        KnativeEnvironment.KnativeServiceDefinition s1 = env.mandatoryLookupService(Knative.Type.endpoint, "myEndpoint");
+        assertThat(s1.getHost()).isEqualTo("host1");
+        assertThat(s1.getType()).isEqualTo(Knative.Type.endpoint);
+        assertThat(s1.getProtocol()).isEqualTo(Knative.Protocol.http);
+        assertThat(s1.getPath()).isEqualTo("/a/path");
+        assertThat(env.mandatoryLookupService(Knative.Type.channel, "myEndpoint").getHost()).isEqualTo("host3");
+
+        // the context path of the endpoint overrides the one of the definition
+        KnativeEnvironment.KnativeServiceDefinition s2 = env.mandatoryLookupService(Knative.Type.endpoint, "myEndpoint/another/path");
+        assertThat(s2.getHost()).isEqualTo("host1");
+        assertThat(s2.getPort()).isEqualTo(8080);
+        assertThat(s2.getType()).isEqualTo(Knative.Type.endpoint);
+        assertThat(s2.getPath()).isEqualTo("/another/path");
+        assertThat(s2.getMetadata()).containsEntry(Knative.KNATIVE_TYPE, "endpoint");
+        assertThat(s1.getPath()).isEqualTo("/a/path");
+
+        assertThat(env.lookupService(Knative.Type.endpoint, "unknown", "myEndpoint")).contains(s1);
+        assertThat(env.lookupService(Knative.Type.endpoint, "unknown")).isNotPresent();
+    }
+
+    @Test
+    void testServiceHosts() {
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "host",
+                8080,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_HOSTS, "host1:8081, host2, [::1]:8082, [::2]"
+                )),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myInvalidEndpoint",
+                "host",
+                8080,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_HOSTS, "host1:80a"
+                ))
+        ));
+
+        assertThat(env.lookupServicesOrDefault(Knative.Type.endpoint, "myEndpoint"))
+            .extracting(KnativeEnvironment.KnativeServiceDefinition::getHost, KnativeEnvironment.KnativeServiceDefinition::getPort)
+            .containsExactly(
+                tuple("host1", 8081),
+                tuple("host2", 8080),
+                tuple("[::1]", 8082),
+                tuple("[::2]", 8080));
+
+        assertThatThrownBy(() -> env.lookupServicesOrDefault(Knative.Type.endpoint, "myInvalidEndpoint"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("host1:80a")
+            .hasMessageContaining("myInvalidEndpoint");
+    }
+
+    @Test
+    void testLoadEnvironmentOnce() throws Exception {
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setEnvironmentPath("classpath:/environment.json");
+
+        assertThat(component.getEnvironmentLoadTime()).isEqualTo(-1);
+
+        KnativeEndpoint e1 = context.getEndpoint("knative:endpoint/e1", KnativeEndpoint.class);
+        KnativeEndpoint e2 = context.getEndpoint("knative:endpoint/e1?cloudEventsSpecVersion=0.1", KnativeEndpoint.class);
+
+        assertThat(e1).isNotSameAs(e2);
+        assertThat(e1.getService()).isSameAs(e2.getService());
+        assertThat(component.getEnvironmentLoadTime()).isGreaterThanOrEqualTo(0);
+        assertThat(component.getEnvironment()).isNull();
+
+        // a new path is loaded again
+        component.setEnvironmentPath("classpath:/environment.json");
+
+        KnativeEndpoint e3 = context.getEndpoint("knative:endpoint/e1?cloudEventsSpecVersion=0.2", KnativeEndpoint.class);
+        assertThat(e3.getService()).isNotSameAs(e1.getService());
+        assertThat(e3.getService().getHost()).isEqualTo(e1.getService().getHost());
+    }
+
+    @Test
+    void testReloadEnvironment() throws Exception {
+        final int port1 = AvailablePortFinder.getNextAvailable();
+        final int port2 = AvailablePortFinder.getNextAvailable(port1 + 1);
+        final Path path = Files.createTempFile("knative-", ".json");
+
+        try {
+            Files.write(path, environment(port1, port1).getBytes(StandardCharsets.UTF_8));
+
+            KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+            component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+            component.setEnvironmentPath("file:" + path.toAbsolutePath());
+
+            context.addRoutes(new RouteBuilder() {
+                @Override
+                public void configure() throws Exception {
+                    from("direct:e1")
+                        .to("knative:endpoint/e1");
+                    from("direct:e2")
+                        .to("knative:endpoint/e2");
+
+                    fromF("netty4-http:http://localhost:%d/e1", port1)
+                        .to("mock:e1-1");
+                    fromF("netty4-http:http://localhost:%d/e2", port1)
+                        .to("mock:e2-1");
+                    fromF("netty4-http:http://localhost:%d/e1", port2)
+                        .to("mock:e1-2");
+                }
+            });
+
+            context.start();
+
+            KnativeEndpoint e1 = context.getEndpoint("knative:endpoint/e1", KnativeEndpoint.class);
+            KnativeEndpoint e2 = context.getEndpoint("knative:endpoint/e2", KnativeEndpoint.class);
+            Endpoint d1 = e1.getEndpoint();
+            Endpoint d2 = e2.getEndpoint();
+
+            MockEndpoint mock11 = context.getEndpoint("mock:e1-1", MockEndpoint.class);
+            MockEndpoint mock21 = context.getEndpoint("mock:e2-1", MockEndpoint.class);
+            MockEndpoint mock12 = context.getEndpoint("mock:e1-2", MockEndpoint.class);
+            mock11.expectedBodiesReceived("before");
+            mock21.expectedBodiesReceived("before", "after");
+            mock12.expectedBodiesReceived("after");
+
+            context.createProducerTemplate().sendBody("direct:e1", "before");
+            context.createProducerTemplate().sendBody("direct:e2", "before");
+
+            // unchanged
+            assertThat(component.reloadEnvironment()).isFalse();
+
+            // e1 is moved to another port
+            Files.write(path, environment(port2, port1).getBytes(StandardCharsets.UTF_8));
+            assertThat(component.reloadEnvironment()).isTrue();
+            assertThat(component.getEnvironmentReloads()).isEqualTo(1);
+
+            context.createProducerTemplate().sendBody("direct:e1", "after");
+            context.createProducerTemplate().sendBody("direct:e2", "after");
+
+            MockEndpoint.assertIsSatisfied(mock11, mock21, mock12);
+
+            assertThat(e1.getService().getPort()).isEqualTo(port2);
+            assertThat(e1.getEndpoint()).isNotSameAs(d1);
+            assertThat(e2.getEndpoint()).isSameAs(d2);
+
+            // the endpoint e1 was bound to is no longer registered
+            assertThat(context.getEndpoints()).doesNotContain(d1).contains(e1.getEndpoint(), d2);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
     @Test
     void testCreateComponent() throws Exception {
         context.start();
@@ -595,4 +791,848 @@ public class KnativeComponentTest {
         mock1.assertIsSatisfied();
         mock2.assertIsSatisfied();
     }
+
+    @Test
+    void testProducerPool() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain",
+                    Knative.POOL_MAX_CONNECTIONS, "1",
+                    Knative.POOL_MAX_PENDING_ACQUIRES, "1",
+                    Knative.POOL_ACQUIRE_TIMEOUT, "500"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                fromF("netty4-http:http://localhost:%d/a/path", port)
+                    .process(e -> latch.await(10, TimeUnit.SECONDS));
+            }
+        });
+
+        context.start();
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getPoolMaxConnections()).isEqualTo(1);
+        assertThat(endpoint.getPoolMaxPendingAcquires()).isEqualTo(1);
+        assertThat(endpoint.getPoolAcquireTimeout()).isEqualTo(500);
+
+        KnativeProducer producer = (KnativeProducer)endpoint.createProducer();
+        producer.start();
+
+        try {
+            CompletableFuture<Exchange> r1 = send(endpoint, producer);
+            await(() -> producer.getPoolActiveConnections() == 1);
+
+            CompletableFuture<Exchange> r2 = send(endpoint, producer);
+            await(() -> producer.getPoolPendingAcquires() == 1);
+
+            CompletableFuture<Exchange> r3 = send(endpoint, producer);
+            assertThat(r3).isDone();
+            assertThat(r3.get().getException()).isInstanceOf(RejectedExecutionException.class);
+
+            assertThat(r2.get(5, TimeUnit.SECONDS).getException()).isInstanceOf(ExchangeTimedOutException.class);
+
+            latch.countDown();
+
+            assertThat(r1.get(5, TimeUnit.SECONDS).getException()).isNull();
+            await(() -> producer.getPoolActiveConnections() == 0);
+
+            assertThat(producer.getPoolAcquired()).isEqualTo(1);
+            assertThat(producer.getPoolAcquireTimeouts()).isEqualTo(1);
+            assertThat(producer.getPoolAcquireRejections()).isEqualTo(1);
+            assertThat(producer.getPoolPendingAcquires()).isZero();
+        } finally {
+            latch.countDown();
+            producer.stop();
+        }
+    }
+
+    @Test
+    void testProducerLoadBalancing() throws Exception {
+        final int port1 = AvailablePortFinder.getNextAvailable();
+        final int port2 = AvailablePortFinder.getNextAvailable(port1 + 1);
+        final int port3 = AvailablePortFinder.getNextAvailable(port2 + 1);
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port1,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                )),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                -1,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.SERVICE_META_HOSTS, String.format("localhost:%d, localhost:%d", port2, port3)
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+        component.getConfiguration().setOutlierConsecutiveFailures(2);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint");
+
+                fromF("netty4-http:http://localhost:%d/a/path", port1)
+                    .to("mock:i1");
+                fromF("netty4-http:http://localhost:%d/a/path", port2)
+                    .to("mock:i2");
+                fromF("netty4-http:http://localhost:%d/a/path", port3)
+                    .to("mock:i3")
+                    .setHeader(Exchange.HTTP_RESPONSE_CODE).constant(500);
+            }
+        });
+
+        context.start();
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getLoadBalancerInstances()).isEqualTo(3);
+
+        MockEndpoint mock1 = context.getEndpoint("mock:i1", MockEndpoint.class);
+        MockEndpoint mock2 = context.getEndpoint("mock:i2", MockEndpoint.class);
+        MockEndpoint mock3 = context.getEndpoint("mock:i3", MockEndpoint.class);
+        mock1.expectedMessageCount(5);
+        mock2.expectedMessageCount(5);
+        mock3.expectedMessageCount(2);
+
+        // the third instance is ejected after its second failure
+        for (int i = 0; i < 12; i++) {
+            context.createProducerTemplate().send("direct:source", e -> e.getIn().setBody("test"));
+        }
+
+        MockEndpoint.assertIsSatisfied(mock1, mock2, mock3);
+
+        assertThat(endpoint.getLoadBalancerEjections()).isEqualTo(1);
+        assertThat(endpoint.getLoadBalancerEjectedInstances()).isEqualTo(1);
+    }
+
+    @Test
+    void testProducerHedging() throws Exception {
+        final int port1 = AvailablePortFinder.getNextAvailable();
+        final int port2 = AvailablePortFinder.getNextAvailable(port1 + 1);
+
+        KnativeEnvironment env = new KnativeEnvironment(Collections.singletonList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                -1,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.SERVICE_META_HOSTS, String.format("localhost:%d,localhost:%d", port1, port2),
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+        component.getConfiguration().setHedgeDelay(300);
+
+        List<String> slow = new CopyOnWriteArrayList<>();
+        List<String> fast = new CopyOnWriteArrayList<>();
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint");
+
+                fromF("netty4-http:http://localhost:%d/a/path", port1)
+                    .process(e -> slow.add(e.getIn().getHeader("CE-EventID", String.class)))
+                    .delay(1500)
+                    .setBody().constant("slow");
+                fromF("netty4-http:http://localhost:%d/a/path", port2)
+                    .process(e -> fast.add(e.getIn().getHeader("CE-EventID", String.class)))
+                    .setBody().constant("fast");
+            }
+        });
+
+        context.start();
+
+        // the exchanges sent to the slow instance are hedged to the fast one
+        for (int i = 0; i < 4; i++) {
+            assertThat(context.createProducerTemplate().requestBody("direct:source", "test", String.class)).isEqualTo("fast");
+        }
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getHedgedExchanges()).isGreaterThanOrEqualTo(2);
+        assertThat(endpoint.getHedgeWins()).isGreaterThanOrEqualTo(2);
+        assertThat(endpoint.getHedgeDelay()).isEqualTo(300);
+        assertThat(slow).isNotEmpty();
+        assertThat(fast).containsAll(slow);
+    }
+
+    @Test
+    void testProducerBatching() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(new KnativeEnvironment(Collections.singletonList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        )));
+        component.getConfiguration().setBatchSize(3);
+        component.getConfiguration().setBatchLingerTime(200);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint");
+
+                fromF("netty4-http:http://localhost:%d/a/path", port)
+                    .convertBodyTo(String.class)
+                    .to("mock:ce");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(2);
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+
+        // the first three events fill a batch, the last one is sent once the linger time elapsed
+        List<CompletableFuture<Exchange>> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final String body = "test" + i;
+            results.add(context.createProducerTemplate().asyncSend("direct:source", e -> e.getIn().setBody(body)));
+        }
+
+        for (CompletableFuture<Exchange> result : results) {
+            Exchange exchange = result.get(5, TimeUnit.SECONDS);
+
+            assertThat(exchange.getException()).isNull();
+            assertThat(exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+        }
+
+        mock.assertIsSatisfied();
+
+        List<Map<String, Object>> batch = new ObjectMapper().readValue(
+            mock.getExchanges().get(0).getIn().getBody(String.class),
+            new TypeReference<List<Map<String, Object>>>() { });
+
+        assertThat(batch).hasSize(3);
+        assertThat(batch).allSatisfy(event -> assertThat(event).containsKeys("id", "specversion", "data"));
+    }
+
+    @Test
+    void testConsumerConcurrencyLimit() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+        component.getConfiguration().setConcurrencyLimitStrategy(
+            () -> new KnativeAimdLimit(1, 1, 1, 0.5, 10, TimeUnit.SECONDS));
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .process(e -> entered.countDown())
+                    .process(e -> latch.await(10, TimeUnit.SECONDS))
+                    .setBody().constant("ok");
+
+                from("direct:source")
+                    .toF("http4://localhost:%d/a/path?throwExceptionOnFailure=false", port);
+            }
+        });
+
+        context.start();
+
+        try {
+            CompletableFuture<Exchange> r1 = context.createProducerTemplate().asyncSend("direct:source", e -> event(e, "myEventID1"));
+
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Exchange r2 = context.createProducerTemplate().send("direct:source", e -> event(e, "myEventID2"));
+
+            assertThat(r2.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(503);
+            assertThat(r2.getOut().getHeader("Retry-After", String.class)).isEqualTo("1");
+
+            latch.countDown();
+
+            Exchange r1Result = r1.get(5, TimeUnit.SECONDS);
+            assertThat(r1Result.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+            assertThat(r1Result.getOut().getBody(String.class)).isEqualTo("ok");
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    void testConsumerDispatch() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> threads = new CopyOnWriteArrayList<>();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain",
+                    Knative.CONSUMER_DISPATCH_POOL_SIZE, "1",
+                    Knative.CONSUMER_DISPATCH_QUEUE_SIZE, "1"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .process(e -> threads.add(Thread.currentThread().getName()))
+                    .process(e -> latch.await(10, TimeUnit.SECONDS))
+                    .setBody().constant("ok");
+
+                from("direct:source")
+                    .toF("http4://localhost:%d/a/path?throwExceptionOnFailure=false", port);
+            }
+        });
+
+        context.start();
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getDispatchPoolSize()).isEqualTo(1);
+        assertThat(endpoint.getDispatchQueueSize()).isEqualTo(1);
+
+        try {
+            CompletableFuture<Exchange> r1 = context.createProducerTemplate().asyncSend("direct:source", e -> event(e, "myEventID1"));
+            await(() -> threads.size() == 1);
+
+            CompletableFuture<Exchange> r2 = context.createProducerTemplate().asyncSend("direct:source", e -> event(e, "myEventID2"));
+            await(() -> endpoint.getDispatchQueueDepth() == 1);
+
+            Exchange r3 = context.createProducerTemplate().send("direct:source", e -> event(e, "myEventID3"));
+            assertThat(r3.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(503);
+            assertThat(r3.getOut().getHeader("Retry-After", String.class)).isEqualTo("1");
+            assertThat(endpoint.getDispatchRejectedExchanges()).isEqualTo(1);
+
+            latch.countDown();
+
+            assertThat(r1.get(5, TimeUnit.SECONDS).getOut().getBody(String.class)).isEqualTo("ok");
+            assertThat(r2.get(5, TimeUnit.SECONDS).getOut().getBody(String.class)).isEqualTo("ok");
+            assertThat(endpoint.getDispatchQueueDepth()).isZero();
+            assertThat(endpoint.getDispatchedExchanges()).isEqualTo(2);
+            assertThat(endpoint.getDispatchMaxWaitTime()).isGreaterThanOrEqualTo(endpoint.getDispatchMeanWaitTime());
+            assertThat(threads).hasSize(2).allMatch(name -> name.contains("KnativeDispatch[myEndpoint]"));
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    void testConsumerDeduplication() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain",
+                    Knative.CONSUMER_DEDUPLICATION_CACHE_SIZE, "100"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce")
+                    .setBody().constant("ok");
+
+                from("direct:source")
+                    .toF("http4://localhost:%d/a/path?throwExceptionOnFailure=false", port);
+            }
+        });
+
+        context.start();
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getDeduplicationCacheSize()).isEqualTo(100);
+        assertThat(endpoint.getDeduplicationTtl()).isEqualTo(600000);
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(2);
+        mock.expectedHeaderValuesReceivedInAnyOrder("CE-EventID", "myEventID1", "myEventID2");
+
+        Exchange r1 = context.createProducerTemplate().send("direct:source", e -> event(e, "myEventID1"));
+        Exchange r2 = context.createProducerTemplate().send("direct:source", e -> event(e, "myEventID1"));
+        Exchange r3 = context.createProducerTemplate().send("direct:source", e -> event(e, "myEventID2"));
+
+        mock.assertIsSatisfied();
+
+        assertThat(r1.getOut().getBody(String.class)).isEqualTo("ok");
+        assertThat(r2.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+        assertThat(r3.getOut().getBody(String.class)).isEqualTo("ok");
+        assertThat(endpoint.getDuplicateExchanges()).isEqualTo(1);
+    }
+
+    @Test
+    void testConsumerDeduplicationServerError() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain",
+                    Knative.CONSUMER_DEDUPLICATION_CACHE_SIZE, "100"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+
+        final AtomicInteger attempts = new AtomicInteger();
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                // the first delivery is answered with a 503
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce")
+                    .process(e -> {
+                        e.getOut().setHeader(Exchange.HTTP_RESPONSE_CODE, attempts.getAndIncrement() == 0 ? 503 : 200);
+                        e.getOut().setBody("ok");
+                    });
+
+                from("direct:source")
+                    .toF("http4://localhost:%d/a/path?throwExceptionOnFailure=false", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(2);
+        mock.expectedHeaderValuesReceivedInAnyOrder("CE-EventID", "myEventID1", "myEventID1");
+
+        Exchange r1 = context.createProducerTemplate().send("direct:source", e -> event(e, "myEventID1"));
+        Exchange r2 = context.createProducerTemplate().send("direct:source", e -> event(e, "myEventID1"));
+
+        mock.assertIsSatisfied();
+
+        assertThat(r1.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(503);
+        assertThat(r2.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+        assertThat(r2.getOut().getBody(String.class)).isEqualTo("ok");
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getDuplicateExchanges()).isEqualTo(0);
+    }
+
+    @Test
+    void testConsumerBatch() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.CONSUMER_BATCH_PARALLELISM, "2"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce")
+                    .filter(header("ce-id").isEqualTo("myEventID4"))
+                        .throwException(new IllegalStateException("failed"));
+
+                from("direct:source")
+                    .toF("http4://localhost:%d/a/path?throwExceptionOnFailure=false", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(3);
+        mock.expectedHeaderValuesReceivedInAnyOrder("ce-id", "myEventID1", "myEventID2", "myEventID3");
+        mock.expectedMessagesMatches(e -> e.getIn().getHeader("ce-type", String.class).equals("org.apache.camel.event"));
+
+        Exchange result = context.createProducerTemplate().send("direct:source", e -> {
+            e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+            e.getIn().setBody("["
+                + batchEvent("myEventID1", "\"test\"") + ","
+                + batchEvent("myEventID2", "{\"hello\": \"world\"}") + ","
+                + batchEvent("myEventID3", "[1, 2, 3]")
+                + "]");
+        });
+
+        mock.assertIsSatisfied();
+
+        assertThat(result.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+        assertThat(mock.getExchanges())
+            .extracting(e -> e.getIn().getBody(String.class))
+            .containsExactlyInAnyOrder("test", "{\"hello\": \"world\"}", "[1, 2, 3]");
+
+        // the batch fails as a whole when one of its events fails
+        result = context.createProducerTemplate().send("direct:source", e -> {
+            e.getIn().setHeader(Exchange.CONTENT_TYPE, Knative.MIME_BATCH_CONTENT_MODE);
+            e.getIn().setBody("[" + batchEvent("myEventID4", "\"test\"") + "," + batchEvent("myEventID5", "\"test\"") + "]");
+        });
+
+        assertThat(result.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(500);
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getReceivedBatches()).isEqualTo(2);
+        assertThat(endpoint.getReceivedBatchedExchanges()).isEqualTo(5);
+    }
+
+    @Test
+    void testConsumerAggregation() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.CONSUMER_AGGREGATION_SIZE, "3",
+                    Knative.CONSUMER_AGGREGATION_TIMEOUT, "300"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+
+                from("direct:source")
+                    .toF("http4://localhost:%d/a/path?throwExceptionOnFailure=false", port);
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(2);
+        mock.message(0).body().isInstanceOf(List.class);
+        mock.message(0).exchangeProperty(Exchange.AGGREGATED_SIZE).isEqualTo(3);
+        mock.message(1).exchangeProperty(Exchange.AGGREGATED_COMPLETED_BY).isEqualTo("timeout");
+
+        // the first three events fill an aggregate, the last one is routed once the timeout elapsed
+        List<CompletableFuture<Exchange>> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final String id = "myEventID" + i;
+            results.add(context.createProducerTemplate().asyncSend("direct:source", e -> event(e, id)));
+        }
+
+        await(() -> mock.getReceivedCounter() == 1);
+
+        results.add(context.createProducerTemplate().asyncSend("direct:source", e -> event(e, "myEventID3")));
+
+        mock.assertIsSatisfied();
+
+        for (CompletableFuture<Exchange> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+        }
+
+        Exchange first = mock.getExchanges().get(0);
+        assertThat(first.getIn().getBody(List.class))
+            .extracting(b -> new String((byte[])b, StandardCharsets.UTF_8))
+            .containsExactly("test", "test", "test");
+        assertThat(first.getProperty(Exchange.GROUPED_EXCHANGE, List.class))
+            .extracting(e -> ((Exchange)e).getIn().getHeader("CE-EventID"))
+            .containsExactlyInAnyOrder("myEventID0", "myEventID1", "myEventID2");
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getAggregates()).isEqualTo(2);
+        assertThat(endpoint.getAggregationMaxSize()).isEqualTo(3);
+        assertThat(endpoint.getAggregationsCompletedByTimeout()).isEqualTo(1);
+        assertThat(endpoint.getAggregationSizeDistribution()).startsWith("1=1, 2-3=1, 4-7=0");
+    }
+
+    @Test
+    void testConsumerAggregationSlowRoute() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.CONSUMER_AGGREGATION_SIZE, "10",
+                    Knative.CONSUMER_AGGREGATION_TIMEOUT, "100"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v01.getVersion());
+        component.setEnvironment(env);
+
+        final AtomicInteger aggregates = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                // the first aggregate blocks, like a slow bulk write, longer than the timeout
+                from("knative:endpoint/myEndpoint")
+                    .process(e -> {
+                        if (aggregates.getAndIncrement() == 0) {
+                            latch.await(10, TimeUnit.SECONDS);
+                        }
+                    });
+
+                from("direct:source")
+                    .toF("http4://localhost:%d/a/path?throwExceptionOnFailure=false", port);
+            }
+        });
+
+        context.start();
+
+        try {
+            CompletableFuture<Exchange> r1 = context.createProducerTemplate().asyncSend("direct:source", e -> event(e, "myEventID1"));
+            await(() -> aggregates.get() == 1);
+
+            // the next aggregate completes by timeout and is routed while the first one is blocked
+            CompletableFuture<Exchange> r2 = context.createProducerTemplate().asyncSend("direct:source", e -> event(e, "myEventID2"));
+            assertThat(r2.get(2, TimeUnit.SECONDS).getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+            assertThat(r1).isNotDone();
+
+            latch.countDown();
+            assertThat(r1.get(5, TimeUnit.SECONDS).getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+        } finally {
+            latch.countDown();
+        }
+
+        KnativeEndpoint endpoint = context.getEndpoint("knative:endpoint/myEndpoint", KnativeEndpoint.class);
+        assertThat(endpoint.getAggregationsCompletedByTimeout()).isEqualTo(2);
+    }
+
+    @Test
+    void testPayloadCodec() throws Exception {
+        final int port = AvailablePortFinder.getNextAvailable();
+        final KnativePayloadCodec codec = new KnativeJacksonCodec(new ObjectMapper(), "application/x-test+json");
+
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/a/path",
+                    Knative.KNATIVE_EVENT_TYPE, "org.apache.camel.event",
+                    Knative.CONTENT_TYPE, "text/plain"
+                )),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "myCborEndpoint",
+                "localhost",
+                port,
+                KnativeSupport.mapOf(
+                    Knative.SERVICE_META_PATH, "/b/path",
+                    Knative.PAYLOAD_ENCODING, "cbor"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setCloudEventsSpecVersion(CloudEventsProcessors.v10.getVersion());
+        component.setEnvironment(env);
+        component.setPayloadCodec(codec);
+
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:source")
+                    .to("knative:endpoint/myEndpoint");
+                from("knative:endpoint/myEndpoint")
+                    .to("mock:ce");
+            }
+        });
+
+        context.start();
+
+        MockEndpoint mock = context.getEndpoint("mock:ce", MockEndpoint.class);
+        mock.expectedMessageCount(1);
+        mock.expectedHeaderReceived(Exchange.CONTENT_TYPE, "application/x-test+json");
+        mock.expectedHeaderReceived("ce-type", "org.apache.camel.event");
+
+        context.createProducerTemplate().sendBody("direct:source", Collections.singletonMap("a", Arrays.asList(1, 2)));
+
+        mock.assertIsSatisfied();
+
+        assertThat(mock.getExchanges().get(0).getIn().getBody())
+            .isEqualTo(Collections.singletonMap("a", Arrays.asList(1, 2)));
+
+        // the payload encoding set on the service takes precedence over the one
+        // of the endpoint, but a custom codec over both of them
+        KnativeEndpoint cbor = context.getEndpoint("knative:endpoint/myCborEndpoint", KnativeEndpoint.class);
+        assertThat(cbor.getPayloadCodec()).isSameAs(codec);
+
+        component.setPayloadCodec(null);
+
+        KnativeEndpoint missing = context.getEndpoint("knative:endpoint/myCborEndpoint?payloadEncoding=json", KnativeEndpoint.class);
+        assertThatThrownBy(missing::getPayloadCodec)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("CBORFactory");
+    }
+
+    // **************************
+    //
+    // Helpers
+    //
+    // **************************
+
+    private static CompletableFuture<Exchange> send(Endpoint endpoint, AsyncProcessor processor) {
+        final CompletableFuture<Exchange> answer = new CompletableFuture<>();
+        final Exchange exchange = endpoint.createExchange();
+
+        exchange.setProperty(Exchange.CREATED_TIMESTAMP, new Date());
+        exchange.getIn().setBody("test");
+        processor.process(exchange, doneSync -> answer.complete(exchange));
+
+        return answer;
+    }
+
+    private static String environment(int port1, int port2) {
+        return "{\"services\": ["
+            + "{\"type\": \"endpoint\", \"protocol\": \"http\", \"name\": \"e1\", \"host\": \"localhost\", \"port\": " + port1
+            + ", \"metadata\": {\"service.path\": \"/e1\"}},"
+            + "{\"type\": \"endpoint\", \"protocol\": \"http\", \"name\": \"e2\", \"host\": \"localhost\", \"port\": " + port2
+            + ", \"metadata\": {\"service.path\": \"/e2\"}}"
+            + "]}";
+    }
+
+    private static String batchEvent(String id, String data) {
+        return "{\"specversion\": \"1.0\", \"type\": \"org.apache.camel.event\", \"source\": \"/somewhere\", "
+            + "\"id\": \"" + id + "\", \"datacontenttype\": \"application/json\", \"data\": " + data + "}";
+    }
+
+    private static void event(Exchange exchange, String id) {
+        exchange.getIn().setHeader(Exchange.CONTENT_TYPE, "text/plain");
+        exchange.getIn().setHeader("CE-CloudEventsVersion", "0.1");
+        exchange.getIn().setHeader("CE-EventType", "org.apache.camel.event");
+        exchange.getIn().setHeader("CE-EventID", id);
+        exchange.getIn().setHeader("CE-Source", "/somewhere");
+        exchange.getIn().setBody("test");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met in time");
+            }
+
+            Thread.sleep(10);
+        }
+    }
 }
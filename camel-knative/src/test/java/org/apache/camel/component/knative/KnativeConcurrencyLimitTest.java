@@ -0,0 +1,301 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KnativeConcurrencyLimitTest {
+
+    private CamelContext context;
+
+    // **************************
+    //
+    // Setup
+    //
+    // **************************
+
+    @BeforeEach
+    public void before() {
+        this.context = new DefaultCamelContext();
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        if (this.context != null) {
+            this.context.stop();
+        }
+    }
+
+    // **************************
+    //
+    // Tests
+    //
+    // **************************
+
+    @Test
+    void testAimdLimit() {
+        final KnativeAimdLimit limit = new KnativeAimdLimit(10, 2, 12, 0.5, 100, TimeUnit.MILLISECONDS);
+
+        // fast sink but the consumer does not use the limit
+        limit.onSample(ms(10), 1, false);
+        assertThat(limit.getLimit()).isEqualTo(10);
+
+        // fast sink and busy consumer
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(ms(10), limit.getLimit(), false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(12);
+
+        // slow sink
+        limit.onSample(ms(200), 12, false);
+        assertThat(limit.getLimit()).isEqualTo(6);
+        limit.onSample(ms(200), 6, false);
+        limit.onSample(ms(200), 3, false);
+        assertThat(limit.getLimit()).isEqualTo(2);
+
+        // overloaded sink
+        limit.onSample(ms(10), 2, false);
+        assertThat(limit.getLimit()).isEqualTo(3);
+        limit.onSample(ms(10), 3, true);
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void testGradientLimit() {
+        final KnativeGradientLimit limit = new KnativeGradientLimit(10, 1, 100, 0.2, 1.5, 100);
+
+        // fast sink and busy consumer
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(ms(10), limit.getLimit(), false);
+        }
+        final int steady = limit.getLimit();
+        assertThat(steady).isGreaterThan(10);
+
+        // idle consumer
+        limit.onSample(ms(10), 1, false);
+        assertThat(limit.getLimit()).isEqualTo(steady);
+
+        // slow sink
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(ms(100), limit.getLimit(), false);
+        }
+        final int throttled = limit.getLimit();
+        assertThat(throttled).isLessThan(steady);
+
+        // overloaded sink
+        limit.onSample(ms(100), limit.getLimit(), true);
+        assertThat(limit.getLimit()).isLessThan(throttled);
+
+        // recovered sink
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(ms(10), limit.getLimit(), false);
+        }
+        assertThat(limit.getLimit()).isGreaterThan(throttled);
+    }
+
+    @Test
+    void testInvalidLimits() {
+        assertThatThrownBy(() -> new KnativeAimdLimit(10, 0, 12, 0.5, 100, TimeUnit.MILLISECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new KnativeAimdLimit(10, 1, 12, 1.5, 100, TimeUnit.MILLISECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new KnativeGradientLimit(10, 1, 5, 0.2, 1.5, 100))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new KnativeGradientLimit(10, 1, 100, 0.2, 0.5, 100))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testLimitSlowSink() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final SlowSink sink = new SlowSink();
+        final KnativeConcurrencyLimitProcessor processor = new KnativeConcurrencyLimitProcessor(
+            new KnativeAimdLimit(2, 1, 3, 0.5, 100, TimeUnit.MILLISECONDS),
+            sink,
+            clock::get);
+
+        processor.start();
+
+        try {
+            Exchange e1 = process(processor);
+            Exchange e2 = process(processor);
+            Exchange e3 = process(processor);
+
+            assertThat(processor.getInflight()).isEqualTo(2);
+            assertThat(processor.getRejected()).isEqualTo(1);
+            assertThat(sink.pending()).isEqualTo(2);
+            assertRejected(e3);
+
+            // the sink takes longer than the threshold
+            clock.addAndGet(ms(500));
+            sink.complete();
+            sink.complete();
+
+            assertThat(processor.getInflight()).isZero();
+            assertThat(processor.getLimit()).isEqualTo(1);
+            assertThat(e1.hasOut()).isFalse();
+            assertThat(e2.hasOut()).isFalse();
+
+            process(processor);
+            assertRejected(process(processor));
+            assertThat(processor.getRejected()).isEqualTo(2);
+
+            // the sink is fast again
+            clock.addAndGet(ms(10));
+            sink.complete();
+            assertThat(processor.getLimit()).isEqualTo(2);
+
+            process(processor);
+            process(processor);
+            assertThat(processor.getRejected()).isEqualTo(2);
+            assertThat(processor.getInflight()).isEqualTo(2);
+
+            // the sink is overloaded
+            clock.addAndGet(ms(10));
+            sink.fail(new ExchangeTimedOutException(null, 10));
+            sink.complete();
+            assertThat(processor.getLimit()).isEqualTo(2);
+            assertThat(processor.getInflight()).isZero();
+        } finally {
+            processor.stop();
+        }
+    }
+
+    @Test
+    void testLimitFromMetadata() throws Exception {
+        KnativeEnvironment env = new KnativeEnvironment(Arrays.asList(
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "aimd",
+                "localhost",
+                8080,
+                KnativeSupport.mapOf(
+                    Knative.CONSUMER_CONCURRENCY_LIMIT, "aimd"
+                )),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "gradient",
+                "localhost",
+                8081,
+                KnativeSupport.mapOf(
+                    Knative.CONSUMER_CONCURRENCY_LIMIT, "gradient"
+                )),
+            new KnativeEnvironment.KnativeServiceDefinition(
+                Knative.Type.endpoint,
+                Knative.Protocol.http,
+                "none",
+                "localhost",
+                8082,
+                KnativeSupport.mapOf(
+                    Knative.CONSUMER_CONCURRENCY_LIMIT, "none"
+                ))
+        ));
+
+        KnativeComponent component = context.getComponent("knative", KnativeComponent.class);
+        component.setEnvironment(env);
+
+        assertThat(context.getEndpoint("knative:endpoint/aimd", KnativeEndpoint.class).getConcurrencyLimitStrategy().newLimit())
+            .isInstanceOf(KnativeAimdLimit.class);
+        assertThat(context.getEndpoint("knative:endpoint/gradient", KnativeEndpoint.class).getConcurrencyLimitStrategy().newLimit())
+            .isInstanceOf(KnativeGradientLimit.class);
+        assertThat(context.getEndpoint("knative:endpoint/none", KnativeEndpoint.class).getConcurrencyLimitStrategy())
+            .isNull();
+        assertThat(context.getEndpoint("knative:endpoint/none?concurrencyLimit=aimd", KnativeEndpoint.class).getConcurrencyLimitStrategy())
+            .isNull();
+        assertThat(context.getEndpoint("knative:endpoint/gradient?concurrencyLimit=aimd", KnativeEndpoint.class).getConcurrencyLimitStrategy().newLimit())
+            .isInstanceOf(KnativeGradientLimit.class);
+    }
+
+    // **************************
+    //
+    // Helpers
+    //
+    // **************************
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private Exchange process(AsyncProcessor processor) {
+        final Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("test");
+
+        processor.process(exchange, doneSync -> { });
+
+        return exchange;
+    }
+
+    private static void assertRejected(Exchange exchange) {
+        assertThat(exchange.hasOut()).isTrue();
+        assertThat(exchange.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(503);
+        assertThat(exchange.getOut().getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    /*
+     * A downstream sink that holds the exchanges until it is told to complete them, so
+     * tests control both the concurrency and, with a fake clock, the latency.
+     */
+    private static final class SlowSink implements AsyncProcessor {
+        private final Deque<Object[]> pending = new ArrayDeque<>();
+
+        @Override
+        public void process(Exchange exchange) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean process(Exchange exchange, AsyncCallback callback) {
+            pending.addLast(new Object[] { exchange, callback });
+            return false;
+        }
+
+        int pending() {
+            return pending.size();
+        }
+
+        void complete() {
+            final Object[] next = pending.removeFirst();
+            ((AsyncCallback)next[1]).done(false);
+        }
+
+        void fail(Exception cause) {
+            final Object[] next = pending.removeFirst();
+            ((Exchange)next[0]).setException(cause);
+            ((AsyncCallback)next[1]).done(false);
+        }
+    }
+}
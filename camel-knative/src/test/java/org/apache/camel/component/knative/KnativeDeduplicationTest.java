@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.knative;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KnativeDeduplicationTest {
+
+    private CamelContext context;
+
+    // **************************
+    //
+    // Setup
+    //
+    // **************************
+
+    @BeforeEach
+    public void before() {
+        this.context = new DefaultCamelContext();
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        if (this.context != null) {
+            this.context.stop();
+        }
+    }
+
+    // **************************
+    //
+    // Tests
+    //
+    // **************************
+
+    @Test
+    void testTable() {
+        final KnativeDeduplicationTable table = new KnativeDeduplicationTable(10, 100);
+        final long k1 = KnativeDeduplicationTable.key("/source", "1");
+        final long k2 = KnativeDeduplicationTable.key("/source", "2");
+
+        assertThat(table.capacity()).isEqualTo(16);
+        assertThat(KnativeDeduplicationTable.key("/source1", "2")).isNotEqualTo(KnativeDeduplicationTable.key("/source", "12"));
+
+        assertThat(table.acquire(k1, 0)).isEqualTo(KnativeDeduplicationTable.State.ACQUIRED);
+        assertThat(table.acquire(k1, 0)).isEqualTo(KnativeDeduplicationTable.State.INFLIGHT);
+
+        table.complete(k1, 10);
+        assertThat(table.acquire(k1, 50)).isEqualTo(KnativeDeduplicationTable.State.DUPLICATE);
+        assertThat(table.acquire(k1, 110)).isEqualTo(KnativeDeduplicationTable.State.ACQUIRED);
+
+        assertThat(table.acquire(k2, 0)).isEqualTo(KnativeDeduplicationTable.State.ACQUIRED);
+        table.release(k2);
+        assertThat(table.acquire(k2, 0)).isEqualTo(KnativeDeduplicationTable.State.ACQUIRED);
+    }
+
+    @Test
+    void testTableEviction() {
+        final KnativeDeduplicationTable table = new KnativeDeduplicationTable(KnativeDeduplicationTable.PROBES, 100);
+
+        // more keys than the table can hold, the ones expiring first are evicted
+        for (int i = 0; i < KnativeDeduplicationTable.PROBES * 2; i++) {
+            final long key = KnativeDeduplicationTable.key("/source", Integer.toString(i));
+
+            assertThat(table.acquire(key, i)).isEqualTo(KnativeDeduplicationTable.State.ACQUIRED);
+            table.complete(key, i);
+        }
+
+        for (int i = 0; i < KnativeDeduplicationTable.PROBES; i++) {
+            final long key = KnativeDeduplicationTable.key("/source", Integer.toString(KnativeDeduplicationTable.PROBES + i));
+            assertThat(table.acquire(key, 20)).isEqualTo(KnativeDeduplicationTable.State.DUPLICATE);
+        }
+    }
+
+    @Test
+    void testProcessor() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final AtomicInteger processed = new AtomicInteger();
+        final Deque<Runnable> pending = new ArrayDeque<>();
+        final KnativeDeduplicationProcessor processor = new KnativeDeduplicationProcessor(16, 100, new AsyncProcessor() {
+            @Override
+            public boolean process(Exchange exchange, AsyncCallback callback) {
+                processed.incrementAndGet();
+                pending.add(() -> callback.done(false));
+                return false;
+            }
+
+            @Override
+            public void process(Exchange exchange) {
+                throw new UnsupportedOperationException();
+            }
+        }, clock::get);
+
+        processor.start();
+
+        // the first copy is processed
+        final Exchange e1 = event("1");
+        processor.process(e1, doneSync -> { });
+        assertThat(processed).hasValue(1);
+
+        // a copy received while the first one is in flight is retried later
+        final Exchange e2 = event("1");
+        processor.process(e2, doneSync -> { });
+        assertThat(processed).hasValue(1);
+        assertThat(e2.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(503);
+
+        // a copy received once the first one has been processed is acknowledged
+        pending.poll().run();
+        final Exchange e3 = event("1");
+        processor.process(e3, doneSync -> { });
+        assertThat(processed).hasValue(1);
+        assertThat(e3.getOut().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class)).isEqualTo(200);
+        assertThat(processor.getDuplicates()).isEqualTo(1);
+
+        // the id is forgotten once expired
+        clock.set(100);
+        processor.process(event("1"), doneSync -> { });
+        assertThat(processed).hasValue(2);
+        pending.poll().run();
+
+        // a failed event is processed again when redelivered
+        final Exchange e4 = event("2");
+        processor.process(e4, doneSync -> { });
+        e4.setException(new IllegalStateException());
+        pending.poll().run();
+        processor.process(event("2"), doneSync -> { });
+        assertThat(processed).hasValue(4);
+        pending.poll().run();
+
+        // events without id are always processed
+        final Exchange e5 = new DefaultExchange(context);
+        processor.process(e5, doneSync -> { });
+        processor.process(e5, doneSync -> { });
+        assertThat(processed).hasValue(6);
+
+        processor.stop();
+    }
+
+    // **************************
+    //
+    // Helpers
+    //
+    // **************************
+
+    private Exchange event(String id) {
+        final Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setHeader("ce-id", id);
+        exchange.getIn().setHeader("ce-source", "/somewhere");
+
+        return exchange;
+    }
+}